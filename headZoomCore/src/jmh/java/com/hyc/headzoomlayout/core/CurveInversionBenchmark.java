@@ -0,0 +1,74 @@
+package com.hyc.headzoomlayout.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 阻尼曲线反查（重新拖拽和嵌套滑动开始时调用）的开销
+ * 查找表与解析解的误差由DampingTableTest校验
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurveInversionBenchmark {
+
+  @Param({"0.5", "1.1", "2.0"})
+  public float maxZoomRatio;
+
+  @Param({"1.5", "3.0", "6.0"})
+  public float dragAccelerationRatio;
+
+  private ZoomPhysics zoomPhysics;
+  private float[] zoomDistances;
+  private int index;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    zoomPhysics = new ZoomPhysics(DampingBenchmark.TOTAL_DRAG_DISTANCE, maxZoomRatio,
+        dragAccelerationRatio);
+    zoomPhysics.setHeadHeight(DampingBenchmark.HEAD_HEIGHT);
+    float maxZoomDistance = zoomPhysics.getMaxZoomDistance();
+    zoomDistances = new float[1024];
+    for (int i = 0; i < zoomDistances.length; i++) {
+      zoomDistances[i] = maxZoomDistance * i / (zoomDistances.length - 1);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    zoomDistances = null;
+  }
+
+  @Benchmark
+  public float lookupTable() {
+    index = (index + 1) & (zoomDistances.length - 1);
+    return zoomPhysics.getOverPlusDistance(zoomDistances[index]);
+  }
+
+  @Benchmark
+  public float mathPowBaseline() {
+    index = (index + 1) & (zoomDistances.length - 1);
+    float zoomDistance = zoomDistances[index];
+    if (zoomDistance == 0) {
+      return 0.0f;
+    }
+    return (float) (DampingBenchmark.TOTAL_DRAG_DISTANCE * (1 - Math.pow(
+        1 - zoomDistance / maxZoomRatio / DampingBenchmark.HEAD_HEIGHT,
+        1.0f / dragAccelerationRatio))) / ZoomPhysics.DRAG_RATE;
+  }
+}
@@ -0,0 +1,79 @@
+package com.hyc.headzoomlayout.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 单个触摸采样的开销，对比查表与直接调用Math.pow
+ * 每次调用模拟一次ACTION_MOVE：累加手指移动并换算放大距离，手指在最大拖拽距离内往返移动
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DampingBenchmark {
+
+  /**
+   * 250dp的头部在xxhdpi下的高度
+   */
+  static final float HEAD_HEIGHT = 750f;
+  static final float TOTAL_DRAG_DISTANCE = 1500f;
+  /**
+   * 120Hz触摸采样下每个采样的手指移动距离
+   */
+  private static final float SAMPLE_DY = 7f;
+
+  @Param({"0.5", "1.1", "2.0"})
+  public float maxZoomRatio;
+
+  @Param({"1.5", "3.0", "6.0"})
+  public float dragAccelerationRatio;
+
+  private ZoomPhysics zoomPhysics;
+  private float dragDistance;
+  private float direction;
+
+  @Setup
+  public void setUp() {
+    zoomPhysics = new ZoomPhysics(TOTAL_DRAG_DISTANCE, maxZoomRatio, dragAccelerationRatio);
+    zoomPhysics.setHeadHeight(HEAD_HEIGHT);
+    dragDistance = 0;
+    direction = 1;
+  }
+
+  private float nextDy() {
+    if (dragDistance >= TOTAL_DRAG_DISTANCE) {
+      direction = -1;
+    } else if (dragDistance <= 0) {
+      direction = 1;
+    }
+    return SAMPLE_DY * direction;
+  }
+
+  @Benchmark
+  public float lookupTable() {
+    dragDistance = zoomPhysics.accumulateDrag(dragDistance, nextDy());
+    return zoomPhysics.getZoomDistance(dragDistance);
+  }
+
+  @Benchmark
+  public float mathPowBaseline() {
+    dragDistance = zoomPhysics.accumulateDrag(dragDistance, nextDy());
+    float overscrollTop = dragDistance < 0 ? 0 : dragDistance;
+    float percent = (float) (1 - Math.pow((1 - overscrollTop / TOTAL_DRAG_DISTANCE),
+        dragAccelerationRatio));
+    return percent * (maxZoomRatio * HEAD_HEIGHT);
+  }
+}
@@ -0,0 +1,56 @@
+package com.hyc.headzoomlayout.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 回弹引擎每帧的计算开销，回弹结束后立即以新的初速度重新开始，模拟连续的松手回弹
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecoveryBenchmark {
+
+  private static final long FRAME_INTERVAL_NANOS = 8333333L;
+
+  @Param({"0", "1"})
+  public int mode;
+
+  @Param({"-3000", "0", "2000"})
+  public float releaseVelocity;
+
+  private ZoomRecoveryEngine recoveryEngine;
+  private long frameTimeNanos;
+
+  @Setup
+  public void setUp() {
+    ZoomPhysics zoomPhysics = new ZoomPhysics(DampingBenchmark.TOTAL_DRAG_DISTANCE, 1.1f, 3.0f);
+    zoomPhysics.setHeadHeight(DampingBenchmark.HEAD_HEIGHT);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+    recoveryEngine.setMode(mode);
+    recoveryEngine.setDecelerateFactor(1.2f);
+    frameTimeNanos = 0;
+  }
+
+  @Benchmark
+  public float step() {
+    if (!recoveryEngine.isRunning()) {
+      recoveryEngine.start(400f, releaseVelocity, frameTimeNanos);
+    }
+    frameTimeNanos += FRAME_INTERVAL_NANOS;
+    return recoveryEngine.step(frameTimeNanos);
+  }
+}
@@ -0,0 +1,60 @@
+package com.hyc.headzoomlayout.core;
+
+/**
+ * 三次盒式模糊，近似高斯模糊，每个像素的开销与半径无关
+ * 像素格式为ARGB，在后台线程对降采样后的图片使用
+ */
+public final class BoxBlur {
+
+  private static final int PASS_COUNT = 3;
+
+  private BoxBlur() {
+  }
+
+  /**
+   * 模糊像素数组
+   *
+   * @param pixels 按行存储的ARGB像素，模糊结果写回该数组
+   * @param radius 每次盒式模糊的半径，小于1时不处理
+   */
+  public static void blur(int[] pixels, int width, int height, int radius) {
+    if (radius < 1 || width <= 0 || height <= 0) {
+      return;
+    }
+    int[] buffer = new int[width * height];
+    for (int i = 0; i < PASS_COUNT; i++) {
+      //横向模糊后转置，再对转置结果横向模糊即完成纵向模糊
+      blurAndTranspose(pixels, buffer, width, height, radius);
+      blurAndTranspose(buffer, pixels, height, width, radius);
+    }
+  }
+
+  private static void blurAndTranspose(int[] in, int[] out, int width, int height, int radius) {
+    int window = radius * 2 + 1;
+    int lastX = width - 1;
+    for (int y = 0; y < height; y++) {
+      int row = y * width;
+      int a = 0;
+      int r = 0;
+      int g = 0;
+      int b = 0;
+      for (int i = -radius; i <= radius; i++) {
+        int color = in[row + Math.min(Math.max(i, 0), lastX)];
+        a += color >>> 24;
+        r += (color >> 16) & 0xff;
+        g += (color >> 8) & 0xff;
+        b += color & 0xff;
+      }
+      for (int x = 0; x < width; x++) {
+        out[x * height + y] = ((a / window) << 24) | ((r / window) << 16)
+            | ((g / window) << 8) | (b / window);
+        int add = in[row + Math.min(x + radius + 1, lastX)];
+        int remove = in[row + Math.max(x - radius, 0)];
+        a += (add >>> 24) - (remove >>> 24);
+        r += ((add >> 16) & 0xff) - ((remove >> 16) & 0xff);
+        g += ((add >> 8) & 0xff) - ((remove >> 8) & 0xff);
+        b += (add & 0xff) - (remove & 0xff);
+      }
+    }
+  }
+}
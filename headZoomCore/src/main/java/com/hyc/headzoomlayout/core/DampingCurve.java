@@ -0,0 +1,19 @@
+package com.hyc.headzoomlayout.core;
+
+/**
+ * 下拉阻尼曲线，将拖拽比例映射为头部放大比例
+ * 曲线需在[0,1]区间内单调递增，且满足f(0) = 0、f(1) = 1。
+ * 曲线只会在{@link DampingTable}重建时被采样，拖拽过程中通过查表计算，
+ * 因此自定义曲线可以放心使用开销较大的计算或预先计算好的数据。
+ * 同一个曲线对象的采样会在所有布局间共享，曲线的输出不能在创建后改变。
+ */
+public interface DampingCurve {
+
+  /**
+   * 计算放大比例
+   *
+   * @param dragFraction 拖拽距离占最大拖拽距离的比例，取值[0,1]
+   * @return 放大距离占最大放大距离的比例，取值[0,1]
+   */
+  float getZoomFraction(float dragFraction);
+}
@@ -0,0 +1,77 @@
+package com.hyc.headzoomlayout.core;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 阻尼曲线的采样结果，创建后不可修改，同一条曲线的所有{@link DampingTable}共享同一份采样。
+ * 以曲线对象为弱引用键缓存，曲线不再使用时采样随之回收
+ */
+final class DampingSamples {
+
+  private static final Map<DampingCurve, DampingSamples> CACHE =
+      new WeakHashMap<DampingCurve, DampingSamples>();
+
+  /**
+   * zoomTable[i]为拖拽比例i / SAMPLE_COUNT对应的放大比例
+   */
+  final float[] zoomTable = new float[DampingTable.SAMPLE_COUNT + 1];
+  /**
+   * dragTable[i]为放大比例i / SAMPLE_COUNT对应的拖拽比例，
+   * 反查时用于定位正向表的区间，保证正反换算互为逆运算
+   */
+  final float[] dragTable = new float[DampingTable.SAMPLE_COUNT + 1];
+
+  /**
+   * 获取曲线的采样，同一条曲线只采样一次
+   */
+  static DampingSamples obtain(DampingCurve curve) {
+    synchronized (CACHE) {
+      DampingSamples samples = CACHE.get(curve);
+      if (samples == null) {
+        samples = new DampingSamples(curve);
+        CACHE.put(curve, samples);
+      }
+      return samples;
+    }
+  }
+
+  private DampingSamples(DampingCurve curve) {
+    final int sampleCount = DampingTable.SAMPLE_COUNT;
+    for (int i = 0; i <= sampleCount; i++) {
+      zoomTable[i] = clamp(curve.getZoomFraction((float) i / sampleCount));
+    }
+    //保证首尾精确并单调，防止自定义曲线的误差导致反查越界
+    zoomTable[0] = 0.0f;
+    zoomTable[sampleCount] = 1.0f;
+    for (int i = 1; i <= sampleCount; i++) {
+      if (zoomTable[i] < zoomTable[i - 1]) {
+        zoomTable[i] = zoomTable[i - 1];
+      }
+    }
+    buildDragTable();
+  }
+
+  /**
+   * 通过正向表反查生成反向表，正向表单调递增，使用双指针一次遍历即可
+   */
+  private void buildDragTable() {
+    final int sampleCount = DampingTable.SAMPLE_COUNT;
+    int i = 0;
+    for (int j = 0; j <= sampleCount; j++) {
+      float zoomFraction = (float) j / sampleCount;
+      while (i < sampleCount - 1 && zoomTable[i + 1] < zoomFraction) {
+        i++;
+      }
+      float start = zoomTable[i];
+      float end = zoomTable[i + 1];
+      float t = end > start ? (zoomFraction - start) / (end - start) : 0.0f;
+      dragTable[j] = clamp((i + clamp(t)) / sampleCount);
+    }
+    dragTable[sampleCount] = 1.0f;
+  }
+
+  static float clamp(float value) {
+    return value < 0 ? 0.0f : (value > 1 ? 1.0f : value);
+  }
+}
@@ -0,0 +1,130 @@
+package com.hyc.headzoomlayout.core;
+
+/**
+ * 阻尼曲线查找表
+ * 将{@link DampingCurve}采样为正向（拖拽->放大）和反向（放大->拖拽）两张表，
+ * 查表时线性插值，避免在每次触摸事件中调用Math.pow。
+ * 只有曲线变化时才会重新采样，最大拖拽距离和最大放大距离只影响换算比例。
+ * 采样表不可修改并在实例间共享，每个实例只保存换算比例。
+ */
+public final class DampingTable {
+
+  /**
+   * 采样区间数，表长度为SAMPLE_COUNT + 1
+   */
+  public static final int SAMPLE_COUNT = 256;
+
+  /**
+   * 共享的采样表，见{@link DampingSamples}
+   */
+  private float[] zoomTable;
+  private float[] dragTable;
+  private DampingCurve curve;
+  private float totalDragDistance;
+  private float maxZoomDistance;
+
+  public DampingTable(DampingCurve curve, float totalDragDistance) {
+    this.totalDragDistance = totalDragDistance;
+    setCurve(curve);
+  }
+
+  public DampingCurve getCurve() {
+    return curve;
+  }
+
+  /**
+   * 设置阻尼曲线，同一条曲线的采样在所有实例间共享，只有第一次使用时才会采样
+   */
+  public void setCurve(DampingCurve curve) {
+    if (this.curve == curve) {
+      return;
+    }
+    this.curve = curve;
+    DampingSamples samples = DampingSamples.obtain(curve);
+    zoomTable = samples.zoomTable;
+    dragTable = samples.dragTable;
+  }
+
+  public void setTotalDragDistance(float totalDragDistance) {
+    this.totalDragDistance = totalDragDistance;
+  }
+
+  public void setMaxZoomDistance(float maxZoomDistance) {
+    this.maxZoomDistance = maxZoomDistance;
+  }
+
+  /**
+   * 根据拖拽距离计算放大距离
+   */
+  public float getZoomDistance(float dragDistance) {
+    if (totalDragDistance <= 0) {
+      return 0.0f;
+    }
+    return lookup(zoomTable, dragDistance / totalDragDistance) * maxZoomDistance;
+  }
+
+  /**
+   * 获取拖拽距离处放大距离对拖拽距离的导数，用于将手指速度换算为放大速度
+   */
+  public float getZoomSlope(float dragDistance) {
+    if (totalDragDistance <= 0) {
+      return 0.0f;
+    }
+    int index = (int) (dragDistance / totalDragDistance * SAMPLE_COUNT);
+    if (index < 0) {
+      index = 0;
+    } else if (index >= SAMPLE_COUNT) {
+      index = SAMPLE_COUNT - 1;
+    }
+    return (zoomTable[index + 1] - zoomTable[index]) * SAMPLE_COUNT * maxZoomDistance
+        / totalDragDistance;
+  }
+
+  /**
+   * 根据放大距离反推拖拽距离
+   */
+  public float getDragDistance(float zoomDistance) {
+    if (maxZoomDistance <= 0) {
+      return 0.0f;
+    }
+    float zoomFraction = zoomDistance / maxZoomDistance;
+    if (zoomFraction <= 0) {
+      return 0.0f;
+    }
+    if (zoomFraction >= 1) {
+      return totalDragDistance;
+    }
+    //曲线末端斜率趋近于0，反向表直接插值误差较大，这里只用它定位正向表的区间再插值，
+    //使得getDragDistance(getZoomDistance(x)) == x，重新拖拽时头部不会跳动
+    int index = (int) (lookup(dragTable, zoomFraction) * SAMPLE_COUNT);
+    if (index >= SAMPLE_COUNT) {
+      index = SAMPLE_COUNT - 1;
+    }
+    while (index > 0 && zoomTable[index] > zoomFraction) {
+      index--;
+    }
+    while (index < SAMPLE_COUNT - 1 && zoomTable[index + 1] < zoomFraction) {
+      index++;
+    }
+    float start = zoomTable[index];
+    float end = zoomTable[index + 1];
+    float t = end > start ? clamp((zoomFraction - start) / (end - start)) : 0.0f;
+    return (index + t) / SAMPLE_COUNT * totalDragDistance;
+  }
+
+  private static float lookup(float[] table, float fraction) {
+    if (fraction <= 0) {
+      return table[0];
+    }
+    if (fraction >= 1) {
+      return table[SAMPLE_COUNT];
+    }
+    float position = fraction * SAMPLE_COUNT;
+    int index = (int) position;
+    return table[index] + (table[index + 1] - table[index]) * (position - index);
+  }
+
+  private static float clamp(float value) {
+    return DampingSamples.clamp(value);
+  }
+}
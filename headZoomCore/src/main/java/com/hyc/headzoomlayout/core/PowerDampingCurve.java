@@ -0,0 +1,75 @@
+package com.hyc.headzoomlayout.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 默认阻尼曲线 f(x) = 1 - (1 - x) ^ dragAccelerationRatio，
+ * dragAccelerationRatio越大，下拉时加速度减少越快
+ */
+public class PowerDampingCurve implements DampingCurve {
+
+  /**
+   * 只弱引用共享的曲线，曲线不再使用时连同{@link DampingSamples}中的采样一起回收
+   */
+  private static final Map<Float, CurveReference> INSTANCES =
+      new HashMap<Float, CurveReference>();
+  private static final ReferenceQueue<PowerDampingCurve> QUEUE =
+      new ReferenceQueue<PowerDampingCurve>();
+
+  private final float dragAccelerationRatio;
+
+  /**
+   * 获取共享的曲线实例，相同参数的曲线只会采样一次{@link DampingTable}
+   */
+  public static PowerDampingCurve of(float dragAccelerationRatio) {
+    synchronized (INSTANCES) {
+      expungeStaleInstances();
+      CurveReference reference = INSTANCES.get(dragAccelerationRatio);
+      PowerDampingCurve curve = reference != null ? reference.get() : null;
+      if (curve == null) {
+        curve = new PowerDampingCurve(dragAccelerationRatio);
+        INSTANCES.put(dragAccelerationRatio, new CurveReference(curve, QUEUE));
+      }
+      return curve;
+    }
+  }
+
+  /**
+   * 移除已回收的曲线，映射的大小不超过仍在使用的曲线数量
+   */
+  private static void expungeStaleInstances() {
+    CurveReference reference;
+    while ((reference = (CurveReference) QUEUE.poll()) != null) {
+      //同一参数可能已经重新创建了曲线，只移除已回收的那一个
+      if (INSTANCES.get(reference.dragAccelerationRatio) == reference) {
+        INSTANCES.remove(reference.dragAccelerationRatio);
+      }
+    }
+  }
+
+  public PowerDampingCurve(float dragAccelerationRatio) {
+    this.dragAccelerationRatio = dragAccelerationRatio;
+  }
+
+  public float getDragAccelerationRatio() {
+    return dragAccelerationRatio;
+  }
+
+  @Override
+  public float getZoomFraction(float dragFraction) {
+    return (float) (1 - Math.pow(1 - dragFraction, dragAccelerationRatio));
+  }
+
+  private static final class CurveReference extends WeakReference<PowerDampingCurve> {
+
+    final float dragAccelerationRatio;
+
+    CurveReference(PowerDampingCurve curve, ReferenceQueue<PowerDampingCurve> queue) {
+      super(curve, queue);
+      this.dragAccelerationRatio = curve.dragAccelerationRatio;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.hyc.headzoomlayout.core;
+
+/**
+ * 头部放大的物理模型，不依赖Android，可在JVM中直接运行和基准测试
+ * 负责拖拽距离的累加、拖拽距离与放大距离的阻尼换算以及回弹引擎的参数同步。
+ * 拖拽距离：手指下拉距离乘以{@link ZoomPhysics#DRAG_RATE}后累加的值，最大为totalDragDistance；
+ * 放大距离：头部实际增加的高度，最大为maxZoomRatio * headHeight。
+ */
+public final class ZoomPhysics {
+
+  /**
+   * 下拉距离折算为拖拽距离的比例
+   */
+  public static final float DRAG_RATE = 0.6f;
+
+  private float totalDragDistance;
+  private float maxZoomRatio;
+  private float dragAccelerationRatio;
+  private float headHeight;
+  /**
+   * 是否使用了自定义阻尼曲线
+   */
+  private boolean isCustomDampingCurve = false;
+  private final DampingTable dampingTable;
+  private final ZoomRecoveryEngine recoveryEngine = new ZoomRecoveryEngine();
+
+  public ZoomPhysics(float totalDragDistance, float maxZoomRatio, float dragAccelerationRatio) {
+    this.totalDragDistance = totalDragDistance;
+    this.maxZoomRatio = maxZoomRatio;
+    this.dragAccelerationRatio = dragAccelerationRatio;
+    this.dampingTable = new DampingTable(PowerDampingCurve.of(dragAccelerationRatio),
+        totalDragDistance);
+  }
+
+  public float getTotalDragDistance() {
+    return totalDragDistance;
+  }
+
+  public void setTotalDragDistance(float totalDragDistance) {
+    this.totalDragDistance = totalDragDistance;
+    dampingTable.setTotalDragDistance(totalDragDistance);
+  }
+
+  public float getMaxZoomRatio() {
+    return maxZoomRatio;
+  }
+
+  public void setMaxZoomRatio(float maxZoomRatio) {
+    this.maxZoomRatio = maxZoomRatio;
+    updateMaxZoomDistance();
+  }
+
+  public float getDragAccelerationRatio() {
+    return dragAccelerationRatio;
+  }
+
+  /**
+   * 设置拖拽加速度变化比例，使用自定义阻尼曲线时只记录该值
+   */
+  public void setDragAccelerationRatio(float dragAccelerationRatio) {
+    if (this.dragAccelerationRatio == dragAccelerationRatio) {
+      return;
+    }
+    this.dragAccelerationRatio = dragAccelerationRatio;
+    if (!isCustomDampingCurve) {
+      dampingTable.setCurve(PowerDampingCurve.of(dragAccelerationRatio));
+    }
+  }
+
+  /**
+   * 设置自定义阻尼曲线
+   *
+   * @param dampingCurve 传入null时恢复默认曲线{@link PowerDampingCurve}
+   */
+  public void setDampingCurve(DampingCurve dampingCurve) {
+    isCustomDampingCurve = dampingCurve != null;
+    dampingTable.setCurve(isCustomDampingCurve ? dampingCurve
+        : PowerDampingCurve.of(dragAccelerationRatio));
+  }
+
+  public DampingCurve getDampingCurve() {
+    return dampingTable.getCurve();
+  }
+
+  public float getHeadHeight() {
+    return headHeight;
+  }
+
+  /**
+   * 设置头部未放大时的高度
+   */
+  public void setHeadHeight(float headHeight) {
+    this.headHeight = headHeight;
+    updateMaxZoomDistance();
+  }
+
+  /**
+   * 获取最大放大距离
+   */
+  public float getMaxZoomDistance() {
+    return maxZoomRatio * headHeight;
+  }
+
+  private void updateMaxZoomDistance() {
+    dampingTable.setMaxZoomDistance(getMaxZoomDistance());
+    recoveryEngine.setMaxZoomDistance(getMaxZoomDistance());
+  }
+
+  public ZoomRecoveryEngine getRecoveryEngine() {
+    return recoveryEngine;
+  }
+
+  /**
+   * 累加一次手指移动
+   *
+   * @param dragDistance 当前拖拽距离
+   * @param dy 手指在Y轴上的移动距离，向下为正，向下时按{@link ZoomPhysics#DRAG_RATE}折算
+   * @return 新的拖拽距离，不超过最大拖拽距离，小于0表示头部已还原且手指仍在上滑
+   */
+  public float accumulateDrag(float dragDistance, float dy) {
+    if (dy > 0) {
+      dy *= DRAG_RATE;
+    }
+    dragDistance += dy;
+    return dragDistance > totalDragDistance ? totalDragDistance : dragDistance;
+  }
+
+  /**
+   * 根据拖拽距离，通过阻尼函数计算真实的放大距离
+   */
+  public float getZoomDistance(float dragDistance) {
+    if (dragDistance > totalDragDistance) {
+      dragDistance = totalDragDistance;
+    }
+    if (dragDistance < 0) {
+      dragDistance = 0;
+    }
+    return dampingTable.getZoomDistance(dragDistance);
+  }
+
+  /**
+   * 根据放大距离反推拖拽距离，{@link ZoomPhysics#getZoomDistance(float)}的逆运算
+   */
+  public float getDragDistance(float zoomDistance) {
+    return dampingTable.getDragDistance(zoomDistance);
+  }
+
+  /**
+   * 获取头部已放大时重新开始拖拽的起始拖拽距离
+   */
+  public float getOverPlusDistance(float zoomDistance) {
+    if (zoomDistance <= 0) {
+      return 0.0f;
+    }
+    return dampingTable.getDragDistance(zoomDistance) / DRAG_RATE;
+  }
+
+  /**
+   * 将手指速度换算为放大距离的变化速度
+   *
+   * @param fingerVelocity 手指在Y轴上的速度，向下为正
+   * @param dragDistance 当前拖拽距离
+   */
+  public float getZoomVelocity(float fingerVelocity, float dragDistance) {
+    return fingerVelocity * DRAG_RATE * dampingTable.getZoomSlope(dragDistance);
+  }
+
+  /**
+   * 获取放大距离占最大放大距离的比例
+   *
+   * @return 取值[0,1]
+   */
+  public float getZoomFraction(float zoomDistance) {
+    float maxZoomDistance = getMaxZoomDistance();
+    if (maxZoomDistance <= 0) {
+      return 0.0f;
+    }
+    float fraction = zoomDistance / maxZoomDistance;
+    return fraction > 1 ? 1.0f : fraction;
+  }
+}
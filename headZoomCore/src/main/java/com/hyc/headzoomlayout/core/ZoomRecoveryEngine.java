@@ -0,0 +1,250 @@
+package com.hyc.headzoomlayout.core;
+
+/**
+ * 头部回弹引擎
+ * 每个布局只持有一个实例，由帧调度器逐帧调用{@link ZoomRecoveryEngine#step(long)}，回弹过程中不分配对象。
+ * 支持两种模式：
+ * {@link ZoomRecoveryEngine#MODE_DURATION}按maxRecoverTime计算时长，松手时仍在下拉会先减速越过再回弹，
+ * 松手时向上滑动则按速度缩短时长，保证动画初速度与手指衔接；
+ * {@link ZoomRecoveryEngine#MODE_SPRING}使用阻尼弹簧，以松手速度作为初速度。
+ * 回弹目标默认为0，下拉刷新时可通过{@link ZoomRecoveryEngine#setTarget(float)}停在刷新高度。
+ */
+public final class ZoomRecoveryEngine {
+
+  public static final int MODE_DURATION = 0;
+  public static final int MODE_SPRING = 1;
+  /**
+   * 小于该距离时认为回弹结束
+   */
+  private static final float STOP_DISTANCE = 0.5f;
+  /**
+   * 弹簧模式最长执行时间，防止参数异常时无法结束
+   */
+  private static final float MAX_SPRING_TIME = 10f;
+  /**
+   * 目标不为0时，速度小于该值（像素/秒）且距离足够小时认为回弹结束
+   */
+  private static final float STOP_VELOCITY = 10f;
+
+  private int mode = MODE_DURATION;
+  private long maxRecoverTime = 400;
+  private float maxZoomDistance;
+  /**
+   * 减速插值因子，与Android中DecelerateInterpolator的factor一致，为0时线性回弹
+   */
+  private float decelerateFactor;
+  private float stiffness = 200f;
+  private float dampingRatio = 1.0f;
+  /**
+   * 回弹的目标放大距离
+   */
+  private float target = 0;
+
+  private boolean isRunning = false;
+  private long startTimeNanos;
+  private float startValue;
+  private float startVelocity;
+  private float value;
+  /**
+   * 时长模式下，越过阶段的最高点、越过时长和回弹时长（秒）
+   */
+  private float overshootPeak;
+  private float overshootDuration;
+  private float recoverDuration;
+
+  public void setMode(int mode) {
+    this.mode = mode;
+  }
+
+  public int getMode() {
+    return mode;
+  }
+
+  public void setMaxRecoverTime(long maxRecoverTime) {
+    this.maxRecoverTime = maxRecoverTime;
+  }
+
+  public void setMaxZoomDistance(float maxZoomDistance) {
+    this.maxZoomDistance = maxZoomDistance;
+  }
+
+  public void setDecelerateFactor(float decelerateFactor) {
+    this.decelerateFactor = decelerateFactor;
+  }
+
+  public void setStiffness(float stiffness) {
+    this.stiffness = stiffness;
+  }
+
+  public void setDampingRatio(float dampingRatio) {
+    this.dampingRatio = dampingRatio;
+  }
+
+  /**
+   * 设置回弹的目标放大距离，在下一次{@link ZoomRecoveryEngine#start(float, float, long)}时生效
+   */
+  public void setTarget(float target) {
+    this.target = target < 0 ? 0 : target;
+  }
+
+  public float getTarget() {
+    return target;
+  }
+
+  public boolean isRunning() {
+    return isRunning;
+  }
+
+  public float getValue() {
+    return value;
+  }
+
+  /**
+   * 开始回弹
+   *
+   * @param from 当前放大距离
+   * @param velocity 放大距离的变化速度（像素/秒），大于0表示仍在放大
+   * @param startTimeNanos 开始时间，与{@link System#nanoTime()}同一时间基准
+   */
+  public void start(float from, float velocity, long startTimeNanos) {
+    this.startValue = from;
+    this.startVelocity = velocity;
+    this.startTimeNanos = startTimeNanos;
+    this.value = from;
+    this.isRunning = from != target || velocity > 0;
+    if (mode == MODE_DURATION) {
+      prepareDuration();
+    }
+  }
+
+  public void cancel() {
+    isRunning = false;
+  }
+
+  /**
+   * 计算当前帧的放大距离
+   *
+   * @param frameTimeNanos 帧时间
+   * @return 放大距离，结束时返回回弹目标
+   */
+  public float step(long frameTimeNanos) {
+    if (!isRunning) {
+      return value;
+    }
+    float time = (frameTimeNanos - startTimeNanos) / 1000000000f;
+    if (time < 0) {
+      time = 0;
+    }
+    if (mode == MODE_SPRING) {
+      stepSpring(time);
+    } else {
+      stepDuration(time);
+    }
+    return value;
+  }
+
+  private void prepareDuration() {
+    float from = startValue;
+    float velocity = startVelocity;
+    overshootDuration = 0;
+    overshootPeak = from;
+    if (velocity > 0 && from < maxZoomDistance) {
+      //松手时仍在下拉，先匀减速越过一段距离
+      overshootDuration = maxRecoverTime / 4 / 1000f;
+      overshootPeak = from + velocity * overshootDuration / 2;
+      if (overshootPeak > maxZoomDistance) {
+        overshootPeak = maxZoomDistance;
+        overshootDuration = 2 * (overshootPeak - from) / velocity;
+      }
+    }
+    float distance = Math.abs(overshootPeak - target);
+    recoverDuration = maxZoomDistance > 0
+        ? maxRecoverTime / 1000f * distance / maxZoomDistance : 0;
+    if (velocity < 0 && overshootPeak > target) {
+      //松手时向上滑动，按照初速度缩短回弹时长，插值器在起点的斜率为2 * factor
+      float initialSlope = decelerateFactor > 0 ? 2 * decelerateFactor : 1;
+      float velocityDuration = distance * initialSlope / -velocity;
+      if (velocityDuration < recoverDuration) {
+        recoverDuration = velocityDuration;
+      }
+    }
+  }
+
+  private void stepDuration(float time) {
+    if (time < overshootDuration) {
+      value = startValue + startVelocity * time
+          - startVelocity * time * time / (2 * overshootDuration);
+      return;
+    }
+    float fraction = recoverDuration > 0 ? (time - overshootDuration) / recoverDuration : 1;
+    if (fraction >= 1) {
+      finish();
+      return;
+    }
+    value = target + (overshootPeak - target) * (1 - interpolate(fraction));
+  }
+
+  private float interpolate(float input) {
+    if (decelerateFactor <= 0) {
+      return input;
+    }
+    if (decelerateFactor == 1.0f) {
+      return 1.0f - (1.0f - input) * (1.0f - input);
+    }
+    return (float) (1.0f - Math.pow(1.0f - input, 2 * decelerateFactor));
+  }
+
+  /**
+   * 弹簧解析解，以目标位置为原点
+   */
+  private void stepSpring(float time) {
+    double omega = Math.sqrt(stiffness);
+    double x0 = startValue - target;
+    double v0 = startVelocity;
+    double position;
+    double velocity;
+    if (dampingRatio < 1) {
+      double dampedOmega = omega * Math.sqrt(1 - dampingRatio * dampingRatio);
+      double a = x0;
+      double b = (v0 + dampingRatio * omega * x0) / dampedOmega;
+      double decay = Math.exp(-dampingRatio * omega * time);
+      double cos = Math.cos(dampedOmega * time);
+      double sin = Math.sin(dampedOmega * time);
+      position = decay * (a * cos + b * sin);
+      velocity = decay * ((-dampingRatio * omega * a + b * dampedOmega) * cos
+          + (-dampingRatio * omega * b - a * dampedOmega) * sin);
+    } else if (dampingRatio == 1) {
+      double a = x0;
+      double b = v0 + omega * x0;
+      double decay = Math.exp(-omega * time);
+      position = decay * (a + b * time);
+      velocity = decay * (b - omega * (a + b * time));
+    } else {
+      double root = omega * Math.sqrt(dampingRatio * dampingRatio - 1);
+      double r1 = -dampingRatio * omega + root;
+      double r2 = -dampingRatio * omega - root;
+      double c1 = (v0 - r2 * x0) / (r1 - r2);
+      double c2 = x0 - c1;
+      double e1 = Math.exp(r1 * time);
+      double e2 = Math.exp(r2 * time);
+      position = c1 * e1 + c2 * e2;
+      velocity = c1 * r1 * e1 + c2 * r2 * e2;
+    }
+    if (target == 0 ? position <= STOP_DISTANCE && velocity <= 0
+        : Math.abs(position) <= STOP_DISTANCE && Math.abs(velocity) <= STOP_VELOCITY) {
+      //头部无法缩小到原始尺寸以下，目标为0时越过0点即结束
+      finish();
+      return;
+    }
+    if (time > MAX_SPRING_TIME) {
+      finish();
+      return;
+    }
+    value = (float) Math.max(target + position, 0);
+  }
+
+  private void finish() {
+    value = target;
+    isRunning = false;
+  }
+}
@@ -0,0 +1,122 @@
+package com.hyc.headzoomlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 查找表与解析解的误差：正向、反向以及往返换算，覆盖基准测试使用的参数范围
+ */
+public class DampingTableTest {
+
+  private static final float TOTAL_DRAG_DISTANCE = 1500f;
+  private static final float MAX_ZOOM_DISTANCE = 1500f;
+  private static final float[] DRAG_ACCELERATION_RATIOS = {1.5f, 3.0f, 6.0f};
+  private static final int ACCURACY_SAMPLES = 10000;
+  /**
+   * 正向插值允许的最大误差（像素）
+   */
+  private static final double FORWARD_TOLERANCE = 0.5;
+  /**
+   * 往返换算允许的最大误差（像素），超过时重新拖拽头部会跳动
+   */
+  private static final double ROUND_TRIP_TOLERANCE = 0.5;
+
+  @Test
+  public void forwardLookupMatchesCurve() {
+    for (float ratio : DRAG_ACCELERATION_RATIOS) {
+      DampingTable table = createTable(ratio);
+      double maxError = 0;
+      for (int i = 0; i <= ACCURACY_SAMPLES; i++) {
+        double fraction = (double) i / ACCURACY_SAMPLES;
+        double exact = (1 - Math.pow(1 - fraction, ratio)) * MAX_ZOOM_DISTANCE;
+        maxError = Math.max(maxError, Math.abs(
+            table.getZoomDistance((float) (fraction * TOTAL_DRAG_DISTANCE)) - exact));
+      }
+      assertTrue("ratio " + ratio + " forward error " + maxError,
+          maxError <= FORWARD_TOLERANCE);
+    }
+  }
+
+  @Test
+  public void inverseLookupMatchesCurve() {
+    for (float ratio : DRAG_ACCELERATION_RATIOS) {
+      DampingTable table = createTable(ratio);
+      for (int i = 0; i <= ACCURACY_SAMPLES; i++) {
+        double fraction = (double) i / ACCURACY_SAMPLES;
+        double exact = (1 - Math.pow(1 - fraction, 1.0 / ratio)) * TOTAL_DRAG_DISTANCE;
+        float dragDistance = table.getDragDistance((float) (fraction * MAX_ZOOM_DISTANCE));
+        //曲线末端斜率趋近于0，拖拽距离的误差换算到放大距离后才有意义
+        double zoomError = Math.abs(table.getZoomDistance(dragDistance)
+            - table.getZoomDistance((float) exact));
+        assertTrue("ratio " + ratio + " fraction " + fraction + " inverse error " + zoomError,
+            zoomError <= FORWARD_TOLERANCE + ROUND_TRIP_TOLERANCE);
+      }
+    }
+  }
+
+  @Test
+  public void roundTripIsStable() {
+    for (float ratio : DRAG_ACCELERATION_RATIOS) {
+      DampingTable table = createTable(ratio);
+      double maxError = 0;
+      for (int i = 0; i <= ACCURACY_SAMPLES; i++) {
+        float zoomDistance = MAX_ZOOM_DISTANCE * i / ACCURACY_SAMPLES;
+        maxError = Math.max(maxError,
+            Math.abs(table.getZoomDistance(table.getDragDistance(zoomDistance)) - zoomDistance));
+      }
+      assertTrue("ratio " + ratio + " round trip error " + maxError,
+          maxError <= ROUND_TRIP_TOLERANCE);
+    }
+  }
+
+  @Test
+  public void endpointsAreExact() {
+    DampingTable table = createTable(3.0f);
+    assertEquals(0f, table.getZoomDistance(0), 0f);
+    assertEquals(MAX_ZOOM_DISTANCE, table.getZoomDistance(TOTAL_DRAG_DISTANCE), 0f);
+    assertEquals(MAX_ZOOM_DISTANCE, table.getZoomDistance(TOTAL_DRAG_DISTANCE * 2), 0f);
+    assertEquals(0f, table.getDragDistance(0), 0f);
+    assertEquals(0f, table.getDragDistance(-1), 0f);
+    assertEquals(TOTAL_DRAG_DISTANCE, table.getDragDistance(MAX_ZOOM_DISTANCE), 0f);
+  }
+
+  @Test
+  public void emptyRangesReturnZero() {
+    DampingTable table = new DampingTable(PowerDampingCurve.of(3.0f), 0);
+    table.setMaxZoomDistance(MAX_ZOOM_DISTANCE);
+    assertEquals(0f, table.getZoomDistance(100), 0f);
+    assertEquals(0f, table.getZoomSlope(100), 0f);
+    table.setTotalDragDistance(TOTAL_DRAG_DISTANCE);
+    table.setMaxZoomDistance(0);
+    assertEquals(0f, table.getDragDistance(100), 0f);
+  }
+
+  @Test
+  public void slopeMatchesDerivative() {
+    float ratio = 3.0f;
+    DampingTable table = createTable(ratio);
+    for (int i = 0; i < 10; i++) {
+      double fraction = i / 10.0;
+      double exact = ratio * Math.pow(1 - fraction, ratio - 1)
+          * MAX_ZOOM_DISTANCE / TOTAL_DRAG_DISTANCE;
+      assertEquals("fraction " + fraction, exact,
+          table.getZoomSlope((float) (fraction * TOTAL_DRAG_DISTANCE)), exact * 0.05);
+    }
+  }
+
+  @Test
+  public void samplesAreSharedPerCurve() {
+    DampingCurve curve = PowerDampingCurve.of(3.0f);
+    assertSame(DampingSamples.obtain(curve), DampingSamples.obtain(curve));
+  }
+
+  private static DampingTable createTable(float dragAccelerationRatio) {
+    DampingTable table = new DampingTable(PowerDampingCurve.of(dragAccelerationRatio),
+        TOTAL_DRAG_DISTANCE);
+    table.setMaxZoomDistance(MAX_ZOOM_DISTANCE);
+    return table;
+  }
+}
@@ -0,0 +1,37 @@
+package com.hyc.headzoomlayout.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * 共享曲线实例：相同参数返回同一条曲线，不同参数互不影响
+ */
+public class PowerDampingCurveTest {
+
+  @Test
+  public void sameRatioSharesInstance() {
+    PowerDampingCurve curve = PowerDampingCurve.of(3.0f);
+    assertSame(curve, PowerDampingCurve.of(3.0f));
+    assertSame(DampingSamples.obtain(curve), DampingSamples.obtain(PowerDampingCurve.of(3.0f)));
+  }
+
+  @Test
+  public void differentRatiosAreIndependent() {
+    PowerDampingCurve soft = PowerDampingCurve.of(1.5f);
+    PowerDampingCurve hard = PowerDampingCurve.of(6.0f);
+    assertNotSame(soft, hard);
+    assertEquals(1.5f, soft.getDragAccelerationRatio(), 0f);
+    assertEquals(6.0f, hard.getDragAccelerationRatio(), 0f);
+  }
+
+  @Test
+  public void curveEndpoints() {
+    PowerDampingCurve curve = PowerDampingCurve.of(3.0f);
+    assertEquals(0f, curve.getZoomFraction(0), 0f);
+    assertEquals(1f, curve.getZoomFraction(1), 0f);
+    assertEquals(0.875f, curve.getZoomFraction(0.5f), 1e-6f);
+  }
+}
@@ -0,0 +1,2 @@
+# RecyclerView为可选依赖
+-dontwarn androidx.recyclerview.widget.**
@@ -0,0 +1,171 @@
+package com.hyc.headzoomlayout;
+
+import java.util.Arrays;
+
+/**
+ * 一次轨迹回放的结果
+ * 包含放大距离随时间的变化（每个事件和每帧之后各采样一次）、内容View的布局次数和每个事件的处理耗时
+ */
+public final class GestureReplayReport {
+
+  private long[] sampleTimes = new long[64];
+  private float[] sampleDistances = new float[64];
+  private int sampleCount = 0;
+  private long[] eventCpuTimes = new long[64];
+  private int eventCount = 0;
+  private int motionEventCount = 0;
+  private int nestedScrollEventCount = 0;
+  private int frameCount = 0;
+  private int layoutCount = 0;
+  private int recordedLayoutWidth;
+  private int recordedLayoutHeight;
+  private int recordedHeadViewWidth;
+  private int recordedHeadViewHeight;
+
+  GestureReplayReport() {
+  }
+
+  void setRecordedSize(int layoutWidth, int layoutHeight, int headViewWidth,
+      int headViewHeight) {
+    this.recordedLayoutWidth = layoutWidth;
+    this.recordedLayoutHeight = layoutHeight;
+    this.recordedHeadViewWidth = headViewWidth;
+    this.recordedHeadViewHeight = headViewHeight;
+  }
+
+  void addSample(long timeMillis, float zoomDistance) {
+    if (sampleCount == sampleTimes.length) {
+      sampleTimes = Arrays.copyOf(sampleTimes, sampleCount * 2);
+      sampleDistances = Arrays.copyOf(sampleDistances, sampleCount * 2);
+    }
+    sampleTimes[sampleCount] = timeMillis;
+    sampleDistances[sampleCount] = zoomDistance;
+    sampleCount++;
+  }
+
+  void addEvent(boolean isMotionEvent, long cpuTimeNanos) {
+    if (eventCount == eventCpuTimes.length) {
+      eventCpuTimes = Arrays.copyOf(eventCpuTimes, eventCount * 2);
+    }
+    eventCpuTimes[eventCount++] = cpuTimeNanos;
+    if (isMotionEvent) {
+      motionEventCount++;
+    } else {
+      nestedScrollEventCount++;
+    }
+  }
+
+  void onFrame() {
+    frameCount++;
+  }
+
+  void onLayout() {
+    layoutCount++;
+  }
+
+  /**
+   * 放大距离的采样数
+   */
+  public int getSampleCount() {
+    return sampleCount;
+  }
+
+  /**
+   * 第index个采样的时间，从轨迹开始计算
+   */
+  public long getSampleTimeMillis(int index) {
+    checkIndex(index, sampleCount);
+    return sampleTimes[index];
+  }
+
+  /**
+   * 第index个采样的放大距离
+   */
+  public float getSampleZoomDistance(int index) {
+    checkIndex(index, sampleCount);
+    return sampleDistances[index];
+  }
+
+  public float getMaxZoomDistance() {
+    float max = 0;
+    for (int i = 0; i < sampleCount; i++) {
+      max = Math.max(max, sampleDistances[i]);
+    }
+    return max;
+  }
+
+  /**
+   * 回放的事件数，包含触摸事件和嵌套滑动回调
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  public int getMotionEventCount() {
+    return motionEventCount;
+  }
+
+  public int getNestedScrollEventCount() {
+    return nestedScrollEventCount;
+  }
+
+  /**
+   * 第index个事件分发到布局的线程CPU耗时
+   */
+  public long getEventCpuTimeNanos(int index) {
+    checkIndex(index, eventCount);
+    return eventCpuTimes[index];
+  }
+
+  public long getTotalEventCpuTimeNanos() {
+    long total = 0;
+    for (int i = 0; i < eventCount; i++) {
+      total += eventCpuTimes[i];
+    }
+    return total;
+  }
+
+  public long getMaxEventCpuTimeNanos() {
+    long max = 0;
+    for (int i = 0; i < eventCount; i++) {
+      max = Math.max(max, eventCpuTimes[i]);
+    }
+    return max;
+  }
+
+  /**
+   * 回放期间推进的帧数
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * 回放期间内容View的布局次数
+   */
+  public int getLayoutCount() {
+    return layoutCount;
+  }
+
+  public int getRecordedLayoutWidth() {
+    return recordedLayoutWidth;
+  }
+
+  public int getRecordedLayoutHeight() {
+    return recordedLayoutHeight;
+  }
+
+  public int getRecordedHeadViewWidth() {
+    return recordedHeadViewWidth;
+  }
+
+  public int getRecordedHeadViewHeight() {
+    return recordedHeadViewHeight;
+  }
+
+  private static void checkIndex(int index, int count) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("index " + index + ", count " + count);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.hyc.headzoomlayout;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 手势轨迹录制
+ * 通过{@link HeadZoomLayout#setGestureTraceRecorder(GestureTraceRecorder)}开启，将布局收到的触摸事件（包含历史采样）
+ * 和嵌套滑动回调按接收顺序写入紧凑的二进制轨迹，可保存后用{@link GestureTraceReplayer}回放，复现线上的卡顿手势。
+ * 录制只在内存中追加字节，超过容量上限后停止录制，不会影响正常的事件处理
+ */
+public final class GestureTraceRecorder {
+
+  static final int MAGIC = 0x485A5452;
+  static final int VERSION = 1;
+
+  static final int RECORD_MOTION = 1;
+  static final int RECORD_NESTED_START = 2;
+  static final int RECORD_NESTED_ACCEPTED = 3;
+  static final int RECORD_NESTED_PRE_SCROLL = 4;
+  static final int RECORD_NESTED_SCROLL = 5;
+  static final int RECORD_NESTED_PRE_FLING = 6;
+  static final int RECORD_NESTED_FLING = 7;
+  static final int RECORD_NESTED_STOP = 8;
+
+  private static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+  private static final int INITIAL_CAPACITY = 4 * 1024;
+
+  private final int maxBytes;
+  private byte[] buffer = new byte[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean isTruncated = false;
+  private HeadZoomLayout layout;
+  /**
+   * 上一条记录的接收时间，为-1时说明还未写入文件头
+   */
+  private long lastRecordTime = -1;
+
+  public GestureTraceRecorder() {
+    this(DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * @param maxBytes 轨迹的最大字节数，超过后停止录制
+   */
+  public GestureTraceRecorder(int maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  void attach(HeadZoomLayout layout) {
+    if (this.layout != null && this.layout != layout) {
+      throw new IllegalStateException("recorder is already attached to another layout");
+    }
+    this.layout = layout;
+  }
+
+  void detach(HeadZoomLayout layout) {
+    if (this.layout == layout) {
+      this.layout = null;
+    }
+  }
+
+  /**
+   * 记录触摸事件，需要在事件被修改之前调用
+   */
+  void onMotionEvent(MotionEvent ev) {
+    long now = SystemClock.uptimeMillis();
+    if (!beginRecord(RECORD_MOTION, now)) {
+      return;
+    }
+    long eventTime = ev.getEventTime();
+    int pointerCount = ev.getPointerCount();
+    int historySize = ev.getHistorySize();
+    writeVarInt(ev.getAction());
+    writeVarInt(ev.getSource());
+    writeVarInt((int) Math.max(0, now - eventTime));
+    writeVarInt((int) Math.max(0, eventTime - ev.getDownTime()));
+    writeVarInt(pointerCount);
+    for (int i = 0; i < pointerCount; i++) {
+      writeVarInt(ev.getPointerId(i));
+      writeVarInt(ev.getToolType(i));
+      writeFloat(ev.getX(i));
+      writeFloat(ev.getY(i));
+    }
+    writeVarInt(historySize);
+    for (int h = 0; h < historySize; h++) {
+      writeVarInt((int) Math.max(0, eventTime - ev.getHistoricalEventTime(h)));
+      for (int i = 0; i < pointerCount; i++) {
+        writeFloat(ev.getHistoricalX(i, h));
+        writeFloat(ev.getHistoricalY(i, h));
+      }
+    }
+  }
+
+  void onStartNestedScroll(int axes, int type) {
+    if (beginRecord(RECORD_NESTED_START, SystemClock.uptimeMillis())) {
+      writeVarInt(axes);
+      writeVarInt(type);
+    }
+  }
+
+  void onNestedScrollAccepted(int axes, int type) {
+    if (beginRecord(RECORD_NESTED_ACCEPTED, SystemClock.uptimeMillis())) {
+      writeVarInt(axes);
+      writeVarInt(type);
+    }
+  }
+
+  void onNestedPreScroll(int dx, int dy, int type) {
+    if (beginRecord(RECORD_NESTED_PRE_SCROLL, SystemClock.uptimeMillis())) {
+      writeSignedVarInt(dx);
+      writeSignedVarInt(dy);
+      writeVarInt(type);
+    }
+  }
+
+  void onNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+      int type) {
+    if (beginRecord(RECORD_NESTED_SCROLL, SystemClock.uptimeMillis())) {
+      writeSignedVarInt(dxConsumed);
+      writeSignedVarInt(dyConsumed);
+      writeSignedVarInt(dxUnconsumed);
+      writeSignedVarInt(dyUnconsumed);
+      writeVarInt(type);
+    }
+  }
+
+  void onNestedPreFling(float velocityX, float velocityY) {
+    if (beginRecord(RECORD_NESTED_PRE_FLING, SystemClock.uptimeMillis())) {
+      writeFloat(velocityX);
+      writeFloat(velocityY);
+    }
+  }
+
+  void onNestedFling(float velocityX, float velocityY, boolean consumed) {
+    if (beginRecord(RECORD_NESTED_FLING, SystemClock.uptimeMillis())) {
+      writeFloat(velocityX);
+      writeFloat(velocityY);
+      writeByte(consumed ? 1 : 0);
+    }
+  }
+
+  void onStopNestedScroll(int type) {
+    if (beginRecord(RECORD_NESTED_STOP, SystemClock.uptimeMillis())) {
+      writeVarInt(type);
+    }
+  }
+
+  /**
+   * 已录制的字节数
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 是否因为超过容量上限停止了录制
+   */
+  public boolean isTruncated() {
+    return isTruncated;
+  }
+
+  /**
+   * 复制已录制的轨迹
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  public void writeTo(OutputStream out) throws IOException {
+    out.write(buffer, 0, size);
+  }
+
+  /**
+   * 清空轨迹，重新开始录制
+   */
+  public void clear() {
+    size = 0;
+    isTruncated = false;
+    lastRecordTime = -1;
+  }
+
+  /**
+   * 写入记录类型和距上一条记录的时间，第一条记录前先写入文件头
+   *
+   * @return 超过容量上限时返回false，不写入该记录
+   */
+  private boolean beginRecord(int type, long now) {
+    if (isTruncated || layout == null) {
+      return false;
+    }
+    if (size >= maxBytes) {
+      isTruncated = true;
+      return false;
+    }
+    if (lastRecordTime < 0) {
+      //布局尺寸在第一条记录时已经确定，回放时用于校验
+      writeInt(MAGIC);
+      writeByte(VERSION);
+      writeVarInt(layout.getWidth());
+      writeVarInt(layout.getHeight());
+      writeVarInt(Math.round(layout.getHeadViewWidth()));
+      writeVarInt(Math.round(layout.getHeadViewHeight()));
+      writeVarInt(layout.getZoomMode());
+      writeFloat(layout.getMaxZoomRatio());
+      lastRecordTime = now;
+    }
+    writeByte(type);
+    writeVarInt((int) Math.max(0, now - lastRecordTime));
+    lastRecordTime = Math.max(lastRecordTime, now);
+    return true;
+  }
+
+  private void writeByte(int value) {
+    if (size == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    buffer[size++] = (byte) value;
+  }
+
+  private void writeInt(int value) {
+    writeByte(value >>> 24);
+    writeByte(value >>> 16);
+    writeByte(value >>> 8);
+    writeByte(value);
+  }
+
+  private void writeFloat(float value) {
+    writeInt(Float.floatToIntBits(value));
+  }
+
+  /**
+   * 非负整数按7位一组写入，小于128的值只占一个字节
+   */
+  private void writeVarInt(int value) {
+    while ((value & ~0x7F) != 0) {
+      writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    writeByte(value);
+  }
+
+  /**
+   * 有符号整数先做zigzag编码，绝对值较小的负数同样只占一个字节
+   */
+  private void writeSignedVarInt(int value) {
+    writeVarInt((value << 1) ^ (value >> 31));
+  }
+}
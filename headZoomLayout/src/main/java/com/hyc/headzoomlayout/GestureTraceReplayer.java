@@ -0,0 +1,295 @@
+package com.hyc.headzoomlayout;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * 手势轨迹回放
+ * 将{@link GestureTraceRecorder}录制的轨迹按原始的时间间隔重新分发给布局，时间由{@link Driver}推进，
+ * 在无界面的测试环境（Robolectric）中可以全速、确定地回放，用于对比修改前后的放大距离、布局次数和事件耗时。
+ * 嵌套滑动回调以布局的第一个子View作为target分发
+ */
+public final class GestureTraceReplayer {
+
+  private static final long DEFAULT_FRAME_INTERVAL_MILLIS = 16;
+  private static final int DEFAULT_MAX_TAIL_FRAMES = 120;
+
+  /**
+   * 回放时间的驱动，由调用方实现
+   */
+  public interface Driver {
+
+    /**
+     * 将主线程时钟推进指定的时间，并执行期间到期的消息和帧回调
+     */
+    void advanceBy(long millis);
+
+    /**
+     * 当前线程的CPU时间
+     */
+    long currentThreadCpuTimeNanos();
+  }
+
+  private final HeadZoomLayout layout;
+  private final Driver driver;
+  private long frameIntervalMillis = DEFAULT_FRAME_INTERVAL_MILLIS;
+  private int maxTailFrames = DEFAULT_MAX_TAIL_FRAMES;
+
+  private byte[] trace;
+  private int position;
+  private MotionEvent.PointerProperties[] pointerProperties = new MotionEvent.PointerProperties[0];
+  private MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[0];
+  private final int[] consumed = new int[2];
+
+  public GestureTraceReplayer(HeadZoomLayout layout, Driver driver) {
+    this.layout = layout;
+    this.driver = driver;
+  }
+
+  /**
+   * 设置帧间隔，记录之间的时间按帧推进，每帧之后采样一次放大距离
+   */
+  public void setFrameIntervalMillis(long frameIntervalMillis) {
+    if (frameIntervalMillis <= 0) {
+      throw new IllegalArgumentException("frameIntervalMillis must be positive");
+    }
+    this.frameIntervalMillis = frameIntervalMillis;
+  }
+
+  /**
+   * 设置轨迹结束后最多推进的帧数，头部复原（或停留在刷新高度）后提前结束
+   */
+  public void setMaxTailFrames(int maxTailFrames) {
+    this.maxTailFrames = Math.max(0, maxTailFrames);
+  }
+
+  /**
+   * 回放轨迹，需要在主线程调用；轨迹中的放大模式和最大放大比例会应用到布局上
+   *
+   * @param trace {@link GestureTraceRecorder#toByteArray()}
+   */
+  public GestureReplayReport replay(byte[] trace) {
+    this.trace = trace;
+    this.position = 0;
+    if (trace.length < 5 || readInt() != GestureTraceRecorder.MAGIC) {
+      throw new IllegalArgumentException("not a gesture trace");
+    }
+    int version = readByte();
+    if (version != GestureTraceRecorder.VERSION) {
+      throw new IllegalArgumentException("unsupported gesture trace version " + version);
+    }
+    final GestureReplayReport report = new GestureReplayReport();
+    report.setRecordedSize(readVarInt(), readVarInt(), readVarInt(), readVarInt());
+    layout.setZoomMode(readVarInt());
+    layout.setMaxZoomRatio(readFloat());
+
+    View target = layout.getChildCount() > 0 ? layout.getChildAt(0) : layout;
+    View.OnLayoutChangeListener layoutCounter = new View.OnLayoutChangeListener() {
+      @Override
+      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
+          int oldTop, int oldRight, int oldBottom) {
+        report.onLayout();
+      }
+    };
+    target.addOnLayoutChangeListener(layoutCounter);
+    try {
+      long startTime = SystemClock.uptimeMillis();
+      long time = 0;
+      report.addSample(time, layout.getZoomDistance());
+      while (position < trace.length) {
+        int type = readByte();
+        long delay = readVarInt();
+        time = advance(report, time, delay);
+        if (type == GestureTraceRecorder.RECORD_MOTION) {
+          MotionEvent event = readMotionEvent(startTime + time);
+          long cpuTime = driver.currentThreadCpuTimeNanos();
+          layout.dispatchTouchEvent(event);
+          report.addEvent(true, driver.currentThreadCpuTimeNanos() - cpuTime);
+          event.recycle();
+        } else {
+          //嵌套滑动的参数很少，解析耗时可以忽略
+          long cpuTime = driver.currentThreadCpuTimeNanos();
+          dispatchNested(type, target);
+          report.addEvent(false, driver.currentThreadCpuTimeNanos() - cpuTime);
+        }
+        report.addSample(time, layout.getZoomDistance());
+      }
+      for (int frame = 0; frame < maxTailFrames; frame++) {
+        if (layout.getZoomDistance() == 0 || layout.isRefreshing()) {
+          break;
+        }
+        time = advance(report, time, frameIntervalMillis);
+      }
+    } finally {
+      target.removeOnLayoutChangeListener(layoutCounter);
+      this.trace = null;
+    }
+    return report;
+  }
+
+  /**
+   * 按帧推进时间，不足一帧的剩余时间直接推进
+   *
+   * @return 推进后的时间
+   */
+  private long advance(GestureReplayReport report, long time, long delay) {
+    while (delay > 0) {
+      long step = Math.min(delay, frameIntervalMillis);
+      driver.advanceBy(step);
+      delay -= step;
+      time += step;
+      if (step == frameIntervalMillis) {
+        report.onFrame();
+        report.addSample(time, layout.getZoomDistance());
+      }
+    }
+    return time;
+  }
+
+  private void dispatchNested(int type, View target) {
+    switch (type) {
+      case GestureTraceRecorder.RECORD_NESTED_START:
+        layout.onStartNestedScroll(target, target, readVarInt(), readVarInt());
+        break;
+      case GestureTraceRecorder.RECORD_NESTED_ACCEPTED:
+        layout.onNestedScrollAccepted(target, target, readVarInt(), readVarInt());
+        break;
+      case GestureTraceRecorder.RECORD_NESTED_PRE_SCROLL: {
+        int dx = readSignedVarInt();
+        int dy = readSignedVarInt();
+        consumed[0] = 0;
+        consumed[1] = 0;
+        layout.onNestedPreScroll(target, dx, dy, consumed, readVarInt());
+        break;
+      }
+      case GestureTraceRecorder.RECORD_NESTED_SCROLL: {
+        int dxConsumed = readSignedVarInt();
+        int dyConsumed = readSignedVarInt();
+        int dxUnconsumed = readSignedVarInt();
+        int dyUnconsumed = readSignedVarInt();
+        consumed[0] = 0;
+        consumed[1] = 0;
+        layout.onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+            readVarInt(), consumed);
+        break;
+      }
+      case GestureTraceRecorder.RECORD_NESTED_PRE_FLING:
+        layout.onNestedPreFling(target, readFloat(), readFloat());
+        break;
+      case GestureTraceRecorder.RECORD_NESTED_FLING:
+        layout.onNestedFling(target, readFloat(), readFloat(), readByte() != 0);
+        break;
+      case GestureTraceRecorder.RECORD_NESTED_STOP:
+        layout.onStopNestedScroll(target, readVarInt());
+        break;
+      default:
+        throw new IllegalArgumentException("unknown gesture trace record " + type);
+    }
+  }
+
+  /**
+   * 按录制的数据重建事件，历史采样通过{@link MotionEvent#addBatch(long, MotionEvent.PointerCoords[], int)}追加
+   *
+   * @param receiveTime 布局收到事件的时间
+   */
+  private MotionEvent readMotionEvent(long receiveTime) {
+    int action = readVarInt();
+    int source = readVarInt();
+    long eventTime = receiveTime - readVarInt();
+    long downTime = eventTime - readVarInt();
+    int pointerCount = readVarInt();
+    ensurePointerCapacity(pointerCount);
+    for (int i = 0; i < pointerCount; i++) {
+      pointerProperties[i].clear();
+      pointerProperties[i].id = readVarInt();
+      pointerProperties[i].toolType = readVarInt();
+      pointerCoords[i].clear();
+      pointerCoords[i].x = readFloat();
+      pointerCoords[i].y = readFloat();
+      pointerCoords[i].pressure = 1f;
+      pointerCoords[i].size = 1f;
+    }
+    //当前位置先保存下来，事件从最早的历史采样开始构建
+    float[] current = new float[pointerCount * 2];
+    for (int i = 0; i < pointerCount; i++) {
+      current[i * 2] = pointerCoords[i].x;
+      current[i * 2 + 1] = pointerCoords[i].y;
+    }
+    int historySize = readVarInt();
+    MotionEvent event = null;
+    for (int h = 0; h < historySize; h++) {
+      long historicalTime = eventTime - readVarInt();
+      for (int i = 0; i < pointerCount; i++) {
+        pointerCoords[i].x = readFloat();
+        pointerCoords[i].y = readFloat();
+      }
+      if (event == null) {
+        event = obtain(downTime, historicalTime, action, pointerCount, source);
+      } else {
+        event.addBatch(historicalTime, pointerCoords, 0);
+      }
+    }
+    for (int i = 0; i < pointerCount; i++) {
+      pointerCoords[i].x = current[i * 2];
+      pointerCoords[i].y = current[i * 2 + 1];
+    }
+    if (event == null) {
+      return obtain(downTime, eventTime, action, pointerCount, source);
+    }
+    event.addBatch(eventTime, pointerCoords, 0);
+    return event;
+  }
+
+  private MotionEvent obtain(long downTime, long eventTime, int action, int pointerCount,
+      int source) {
+    return MotionEvent.obtain(downTime, eventTime, action, pointerCount, pointerProperties,
+        pointerCoords, 0, 0, 1f, 1f, 0, 0, source, 0);
+  }
+
+  private void ensurePointerCapacity(int pointerCount) {
+    if (pointerProperties.length >= pointerCount) {
+      return;
+    }
+    MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+    MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      properties[i] = new MotionEvent.PointerProperties();
+      coords[i] = new MotionEvent.PointerCoords();
+    }
+    pointerProperties = properties;
+    pointerCoords = coords;
+  }
+
+  private int readByte() {
+    if (position >= trace.length) {
+      throw new IllegalArgumentException("truncated gesture trace");
+    }
+    return trace[position++] & 0xFF;
+  }
+
+  private int readInt() {
+    return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+  }
+
+  private float readFloat() {
+    return Float.intBitsToFloat(readInt());
+  }
+
+  private int readVarInt() {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("malformed gesture trace");
+  }
+
+  private int readSignedVarInt() {
+    int value = readVarInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
@@ -0,0 +1,341 @@
+package com.hyc.headzoomlayout;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import androidx.coordinatorlayout.widget.CoordinatorLayout;
+import androidx.core.view.ViewCompat;
+import com.hyc.headzoomlayout.core.DampingCurve;
+import com.hyc.headzoomlayout.core.ZoomPhysics;
+import com.hyc.headzoomlayout.core.ZoomRecoveryEngine;
+
+/**
+ * CoordinatorLayout中的头部放大
+ * 设置给CoordinatorLayout的直接子View（头部或不需要折叠的AppBarLayout），与{@link HeadZoomLayout}使用相同的阻尼和回弹，
+ * 不额外增加一层布局，也不拦截触摸事件：子View向下滑动到顶部后，剩余的嵌套滑动距离用于放大头部。
+ * 头部以顶部中点缩放，位于头部下方的兄弟View同步平移，放大和回弹都不会触发测量和布局。
+ * 滑动的子View需要支持嵌套滑动（RecyclerView、NestedScrollView等），XML中可以在同一个View上使用
+ * maxZoomRatio、maxDragDistance、dragAccelerationRatio、maxRecoverTime等属性
+ */
+public class HeadZoomBehavior<V extends View> extends CoordinatorLayout.Behavior<V> {
+
+  private final ZoomPhysics zoomPhysics;
+  private final ZoomRecoveryEngine recoveryEngine;
+  private boolean isZoomEnabled = true;
+  private CoordinatorLayout parent;
+  private V headView;
+  private ZoomFrameScheduler frameScheduler;
+  private float headViewWidth;
+  private float headViewHeight;
+  private float zoomDistance = 0;
+  /**
+   * 嵌套滑动中的拖拽距离
+   */
+  private float totalUnconsumed = 0;
+  private boolean isNestedScrollInProgress = false;
+  /**
+   * 头部放大时被拦截的fling速度，向下为正，停止嵌套滑动时作为回弹初速度
+   */
+  private float nestedFlingVelocity = 0;
+  private boolean hasPendingZoom = false;
+  private float pendingDragDistance;
+  private HeadZoomLayout.OnHeadZoomListener onHeadZoomListener;
+
+  public HeadZoomBehavior() {
+    zoomPhysics = ZoomAttributes.createPhysics(null);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+  }
+
+  public HeadZoomBehavior(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.HeadZoomLayout);
+    zoomPhysics = ZoomAttributes.createPhysics(typedArray);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+    isZoomEnabled = typedArray.getBoolean(R.styleable.HeadZoomLayout_zoomEnable, true);
+    typedArray.recycle();
+  }
+
+  /**
+   * 获取View上设置的HeadZoomBehavior
+   *
+   * @throws IllegalArgumentException View不是CoordinatorLayout的子View或没有设置HeadZoomBehavior
+   */
+  @SuppressWarnings("unchecked")
+  public static <V extends View> HeadZoomBehavior<V> from(V view) {
+    ViewGroup.LayoutParams params = view.getLayoutParams();
+    if (!(params instanceof CoordinatorLayout.LayoutParams)) {
+      throw new IllegalArgumentException("The view is not a child of CoordinatorLayout");
+    }
+    CoordinatorLayout.Behavior behavior = ((CoordinatorLayout.LayoutParams) params).getBehavior();
+    if (!(behavior instanceof HeadZoomBehavior)) {
+      throw new IllegalArgumentException("The view is not associated with HeadZoomBehavior");
+    }
+    return (HeadZoomBehavior<V>) behavior;
+  }
+
+  @Override
+  public void onDetachedFromLayoutParams() {
+    if (frameScheduler != null) {
+      frameScheduler.cancel();
+    }
+    recoveryEngine.cancel();
+    hasPendingZoom = false;
+    if (headView != null) {
+      applyZoom(0);
+    }
+    parent = null;
+    headView = null;
+    frameScheduler = null;
+    super.onDetachedFromLayoutParams();
+  }
+
+  @Override
+  public boolean onLayoutChild(CoordinatorLayout parent, V child, int layoutDirection) {
+    parent.onLayoutChild(child, layoutDirection);
+    if (headView != child) {
+      this.parent = parent;
+      this.headView = child;
+      this.frameScheduler = new ZoomFrameScheduler(child, new ZoomFrameScheduler.OnFrameListener() {
+        @Override
+        public void onZoomFrame(long frameTimeNanos) {
+          HeadZoomBehavior.this.onZoomFrame(frameTimeNanos);
+        }
+      });
+    }
+    //缩放不改变头部的布局尺寸，布局后的尺寸就是未放大时的尺寸
+    headViewWidth = child.getWidth();
+    headViewHeight = child.getHeight();
+    zoomPhysics.setHeadHeight(headViewHeight);
+    if (zoomDistance > 0) {
+      //兄弟View重新布局后按当前放大距离重新平移
+      applyZoom(zoomDistance);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean onStartNestedScroll(CoordinatorLayout coordinatorLayout, V child,
+      View directTargetChild, View target, int axes, int type) {
+    return isZoomEnabled && headViewHeight > 0
+        && (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+  }
+
+  @Override
+  public void onNestedScrollAccepted(CoordinatorLayout coordinatorLayout, V child,
+      View directTargetChild, View target, int axes, int type) {
+    if (type != ViewCompat.TYPE_TOUCH) {
+      return;
+    }
+    //与HeadZoomLayout一致，重新开始嵌套滑动时停止回弹
+    recoveryEngine.cancel();
+    totalUnconsumed = zoomPhysics.getOverPlusDistance(zoomDistance);
+    nestedFlingVelocity = 0;
+    isNestedScrollInProgress = true;
+  }
+
+  @Override
+  public void onNestedPreScroll(CoordinatorLayout coordinatorLayout, V child, View target,
+      int dx, int dy, int[] consumed, int type) {
+    if (dy >= 0 && totalUnconsumed > 0) {
+      //头部放大时向上滑动，先缩小头部
+      if (dy > totalUnconsumed) {
+        consumed[1] += (int) totalUnconsumed;
+        totalUnconsumed = 0;
+      } else {
+        totalUnconsumed -= dy;
+        consumed[1] += dy;
+      }
+      requestZoom(totalUnconsumed);
+    }
+  }
+
+  @Override
+  public void onNestedScroll(CoordinatorLayout coordinatorLayout, V child, View target,
+      int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed, int type,
+      int[] consumed) {
+    if (type == ViewCompat.TYPE_TOUCH && dyUnconsumed < 0) {
+      //子View已经滑动到顶部，剩余的下拉距离用于放大头部
+      totalUnconsumed = zoomPhysics.accumulateDrag(totalUnconsumed, -dyUnconsumed);
+      requestZoom(totalUnconsumed);
+      consumed[1] += dyUnconsumed;
+    }
+  }
+
+  @Override
+  public boolean onNestedPreFling(CoordinatorLayout coordinatorLayout, V child, View target,
+      float velocityX, float velocityY) {
+    if (zoomDistance > 0 || totalUnconsumed > 0) {
+      //头部未复原时拦截fling，速度作为回弹的初速度
+      nestedFlingVelocity = -velocityY;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void onStopNestedScroll(CoordinatorLayout coordinatorLayout, V child, View target,
+      int type) {
+    if (type != ViewCompat.TYPE_TOUCH || !isNestedScrollInProgress) {
+      return;
+    }
+    isNestedScrollInProgress = false;
+    flushPendingZoom();
+    if (totalUnconsumed > 0 || zoomDistance > 0) {
+      recoveryEngine.setTarget(0);
+      recoveryEngine.start(zoomDistance,
+          zoomPhysics.getZoomVelocity(nestedFlingVelocity, totalUnconsumed), System.nanoTime());
+      if (recoveryEngine.isRunning()) {
+        frameScheduler.schedule();
+      } else {
+        setZoomDistance(0, true);
+      }
+    }
+    totalUnconsumed = 0;
+    nestedFlingVelocity = 0;
+  }
+
+  /**
+   * 同一帧内的多次嵌套滑动只放大一次
+   */
+  private void requestZoom(float dragDistance) {
+    pendingDragDistance = dragDistance;
+    hasPendingZoom = true;
+    frameScheduler.schedule();
+  }
+
+  private void flushPendingZoom() {
+    if (hasPendingZoom) {
+      frameScheduler.cancel();
+      hasPendingZoom = false;
+      setZoomDistance(zoomPhysics.getZoomDistance(pendingDragDistance), false);
+    }
+  }
+
+  private void onZoomFrame(long frameTimeNanos) {
+    if (hasPendingZoom) {
+      hasPendingZoom = false;
+      setZoomDistance(zoomPhysics.getZoomDistance(pendingDragDistance), false);
+    }
+    if (recoveryEngine.isRunning()) {
+      float distance = recoveryEngine.step(frameTimeNanos);
+      setZoomDistance(distance, true);
+      if (recoveryEngine.isRunning()) {
+        frameScheduler.schedule();
+      }
+    }
+  }
+
+  private void setZoomDistance(float distance, boolean isRecovering) {
+    if (distance < 0) {
+      distance = 0;
+    }
+    if (distance == zoomDistance) {
+      return;
+    }
+    applyZoom(distance);
+    zoomDistance = distance;
+    if (onHeadZoomListener != null) {
+      onHeadZoomListener.onHeadZoom(isRecovering, distance);
+    }
+  }
+
+  /**
+   * 缩放头部，平移位于头部下方的兄弟View
+   */
+  private void applyZoom(float distance) {
+    float scale = headViewHeight > 0 ? (headViewHeight + distance) / headViewHeight : 1;
+    headView.setPivotX(headViewWidth / 2);
+    headView.setPivotY(0);
+    headView.setScaleX(scale);
+    headView.setScaleY(scale);
+    int headBottom = headView.getBottom();
+    for (int i = 0; i < parent.getChildCount(); i++) {
+      View sibling = parent.getChildAt(i);
+      if (sibling != headView && sibling.getTop() >= headBottom) {
+        sibling.setTranslationY(distance);
+      }
+    }
+  }
+
+  /**
+   * 获取头部当前的放大距离
+   */
+  public float getZoomDistance() {
+    return zoomDistance;
+  }
+
+  public void setZoomEnabled(boolean zoomEnabled) {
+    isZoomEnabled = zoomEnabled;
+  }
+
+  public boolean isZoomEnabled() {
+    return isZoomEnabled;
+  }
+
+  /**
+   * 设置头部最大放大比例
+   *
+   * @param maxZoomRatio 头部最大放大距离与头部高度的比例
+   */
+  public void setMaxZoomRatio(float maxZoomRatio) {
+    zoomPhysics.setMaxZoomRatio(maxZoomRatio);
+  }
+
+  public float getMaxZoomRatio() {
+    return zoomPhysics.getMaxZoomRatio();
+  }
+
+  /**
+   * 设置可拖拽的最大距离
+   *
+   * @param totalDragDistance 值越大，阻尼越大
+   */
+  public void setTotalDragDistance(float totalDragDistance) {
+    zoomPhysics.setTotalDragDistance(totalDragDistance);
+  }
+
+  /**
+   * 设置拖拽加速度变化比例
+   *
+   * @param dragAccelerationRatio 值越大加速度减少越快
+   */
+  public void setDragAccelerationRatio(float dragAccelerationRatio) {
+    zoomPhysics.setDragAccelerationRatio(dragAccelerationRatio);
+  }
+
+  /**
+   * 设置自定义阻尼曲线
+   *
+   * @param dampingCurve {@link DampingCurve}，传入null时恢复默认曲线
+   */
+  public void setDampingCurve(DampingCurve dampingCurve) {
+    zoomPhysics.setDampingCurve(dampingCurve);
+  }
+
+  /**
+   * 设置最大回弹时间，仅在{@link HeadZoomLayout#RECOVER_MODE_DURATION}下生效
+   */
+  public void setMaxRecoverTime(long maxRecoverTime) {
+    recoveryEngine.setMaxRecoverTime(maxRecoverTime);
+  }
+
+  /**
+   * 设置回弹模式
+   *
+   * @param recoverMode {@link HeadZoomLayout#RECOVER_MODE_DURATION}或{@link HeadZoomLayout#RECOVER_MODE_SPRING}
+   */
+  public void setRecoverMode(int recoverMode) {
+    recoveryEngine.setMode(recoverMode);
+  }
+
+  /**
+   * 设置放大监听
+   *
+   * @param onHeadZoomListener {@link HeadZoomLayout.OnHeadZoomListener}
+   */
+  public void setOnHeadZoomListener(HeadZoomLayout.OnHeadZoomListener onHeadZoomListener) {
+    this.onHeadZoomListener = onHeadZoomListener;
+  }
+}
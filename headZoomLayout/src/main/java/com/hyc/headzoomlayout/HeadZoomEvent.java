@@ -0,0 +1,103 @@
+package com.hyc.headzoomlayout;
+
+/**
+ * 头部放大事件
+ * 在主线程回调时事件对象会被复用，不要在回调之外持有；
+ * 通过Executor回调时每个监听各自持有一份，同样只在回调期间有效，需要保存时使用{@link HeadZoomEvent#copy()}
+ */
+public final class HeadZoomEvent {
+
+  /**
+   * 头部已还原，不再变化
+   */
+  public static final int PHASE_IDLE = 0;
+  /**
+   * 手指拖拽放大
+   */
+  public static final int PHASE_DRAGGING = 1;
+  /**
+   * 嵌套滑动放大
+   */
+  public static final int PHASE_NESTED = 2;
+  /**
+   * 执行回弹
+   */
+  public static final int PHASE_RECOVERING = 3;
+  /**
+   * 下拉刷新中，头部保持在刷新高度
+   */
+  public static final int PHASE_REFRESHING = 4;
+
+  private int phase = PHASE_IDLE;
+  private float zoomDistance;
+  private float zoomFraction;
+  private long frameTimeNanos;
+
+  HeadZoomEvent() {
+  }
+
+  void set(int phase, float zoomDistance, float zoomFraction, long frameTimeNanos) {
+    this.phase = phase;
+    this.zoomDistance = zoomDistance;
+    this.zoomFraction = zoomFraction;
+    this.frameTimeNanos = frameTimeNanos;
+  }
+
+  void set(HeadZoomEvent event) {
+    set(event.phase, event.zoomDistance, event.zoomFraction, event.frameTimeNanos);
+  }
+
+  /**
+   * 复制一份可长期持有的事件
+   */
+  public HeadZoomEvent copy() {
+    HeadZoomEvent event = new HeadZoomEvent();
+    event.set(this);
+    return event;
+  }
+
+  /**
+   * 获取事件阶段
+   *
+   * @return {@link HeadZoomEvent#PHASE_IDLE}、{@link HeadZoomEvent#PHASE_DRAGGING}、
+   * {@link HeadZoomEvent#PHASE_NESTED}、{@link HeadZoomEvent#PHASE_RECOVERING}
+   * 或{@link HeadZoomEvent#PHASE_REFRESHING}
+   */
+  public int getPhase() {
+    return phase;
+  }
+
+  /**
+   * 获取真实放大的距离
+   */
+  public float getZoomDistance() {
+    return zoomDistance;
+  }
+
+  /**
+   * 获取放大距离占最大放大距离的比例，取值[0,1]
+   */
+  public float getZoomFraction() {
+    return zoomFraction;
+  }
+
+  /**
+   * 获取产生该事件的帧时间，与{@link System#nanoTime()}同一时间基准
+   */
+  public long getFrameTimeNanos() {
+    return frameTimeNanos;
+  }
+
+  public boolean isRecovering() {
+    return phase == PHASE_RECOVERING;
+  }
+
+  @Override
+  public String toString() {
+    return "HeadZoomEvent{phase=" + phase
+        + ", zoomDistance=" + zoomDistance
+        + ", zoomFraction=" + zoomFraction
+        + ", frameTimeNanos=" + frameTimeNanos
+        + '}';
+  }
+}
@@ -0,0 +1,376 @@
+package com.hyc.headzoomlayout;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.LruCache;
+import android.view.View;
+import android.widget.ImageView;
+import androidx.annotation.RawRes;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按放大分辨率加载头部背景图
+ * 静止时只按头部未放大的尺寸解码，放大比例越过阈值后才在后台线程用{@link BitmapRegionDecoder}
+ * 解码放大到最大时所需分辨率的区域，解码完成后替换显示，头部还原后换回静止分辨率。
+ * 只解码centerCrop可能显示的区域，解码结果保存在所有页面共享、按字节数限制大小的LRU缓存中。
+ * 背景图的scaleType需要设置为centerCrop，所有方法都需要在主线程调用
+ */
+public final class HeadZoomImageLoader implements HeadZoomLayout.OnHeadZoomEventListener,
+    View.OnLayoutChangeListener {
+
+  /**
+   * 默认在放大比例越过该值时开始解码高分辨率区域
+   */
+  private static final float DEFAULT_HIGH_RES_FRACTION = 0.1f;
+
+  private static LruCache<String, Bitmap> sharedCache;
+
+  private final HeadZoomLayout headZoomLayout;
+  private final ImageView imageView;
+  private Source source;
+  private float highResFraction = DEFAULT_HIGH_RES_FRACTION;
+  /**
+   * 每次重新加载加一，用于丢弃过期的解码结果
+   */
+  private int generation;
+  private Bitmap restBitmap;
+  private Bitmap highResBitmap;
+  /**
+   * 静止分辨率与高分辨率相同时不需要再解码
+   */
+  private boolean isHighResAvailable = false;
+  private boolean isHighResRequested = false;
+  private boolean isHighResShown = false;
+  private int loadedWidth;
+  private int loadedHeight;
+
+  public interface Source {
+    /**
+     * 缓存的key，同一张图片需要返回相同的值
+     */
+    String getKey();
+
+    /**
+     * 打开图片的输入流，在后台线程调用
+     */
+    InputStream open() throws IOException;
+  }
+
+  public HeadZoomImageLoader(HeadZoomLayout headZoomLayout, ImageView imageView) {
+    this.headZoomLayout = headZoomLayout;
+    this.imageView = imageView;
+    headZoomLayout.addOnHeadZoomEventListener(this);
+    //头部尺寸在布局的onLayout中同步，监听布局而不是背景图
+    headZoomLayout.addOnLayoutChangeListener(this);
+  }
+
+  /**
+   * 从文件加载
+   */
+  public static Source fromFile(final String path) {
+    return new Source() {
+      @Override
+      public String getKey() {
+        return "file:" + path;
+      }
+
+      @Override
+      public InputStream open() throws IOException {
+        return new FileInputStream(path);
+      }
+    };
+  }
+
+  /**
+   * 从资源加载，资源需要放在raw或drawable-nodpi中，避免按屏幕密度缩放
+   */
+  public static Source fromResource(final Resources resources, @RawRes final int resId) {
+    return new Source() {
+      @Override
+      public String getKey() {
+        return "res:" + resId;
+      }
+
+      @Override
+      public InputStream open() {
+        return resources.openRawResource(resId);
+      }
+    };
+  }
+
+  /**
+   * 设置共享缓存的大小，默认为最大可用内存的1/8
+   *
+   * @param maxBytes 缓存的最大字节数
+   */
+  public static synchronized void setCacheSize(int maxBytes) {
+    if (sharedCache == null) {
+      sharedCache = createCache(maxBytes);
+    } else if (Build.VERSION.SDK_INT >= 21) {
+      sharedCache.resize(maxBytes);
+    } else {
+      sharedCache.evictAll();
+      sharedCache = createCache(maxBytes);
+    }
+  }
+
+  /**
+   * 清空共享缓存，可在onTrimMemory中调用
+   */
+  public static synchronized void clearCache() {
+    if (sharedCache != null) {
+      sharedCache.evictAll();
+    }
+  }
+
+  private static synchronized LruCache<String, Bitmap> getCache() {
+    if (sharedCache == null) {
+      sharedCache = createCache((int) (Runtime.getRuntime().maxMemory() / 8));
+    }
+    return sharedCache;
+  }
+
+  private static LruCache<String, Bitmap> createCache(int maxBytes) {
+    return new LruCache<String, Bitmap>(maxBytes) {
+      @Override
+      protected int sizeOf(String key, Bitmap value) {
+        //被移除的Bitmap可能仍在显示，不主动recycle
+        return value.getByteCount();
+      }
+    };
+  }
+
+  /**
+   * 设置开始解码高分辨率区域的放大比例
+   *
+   * @param highResFraction 取值[0,1]，越小越早解码
+   */
+  public void setHighResFraction(float highResFraction) {
+    this.highResFraction = highResFraction;
+  }
+
+  public float getHighResFraction() {
+    return highResFraction;
+  }
+
+  /**
+   * 加载图片，头部尚未测量时在测量后加载
+   */
+  public void load(Source source) {
+    this.source = source;
+    loadedWidth = 0;
+    loadedHeight = 0;
+    loadRest();
+  }
+
+  /**
+   * 移除监听并丢弃正在解码的结果，已显示的图片保持不变
+   */
+  public void release() {
+    generation++;
+    source = null;
+    headZoomLayout.removeOnHeadZoomEventListener(this);
+    headZoomLayout.removeOnLayoutChangeListener(this);
+  }
+
+  @Override
+  public void onHeadZoom(HeadZoomEvent event) {
+    if (source == null) {
+      return;
+    }
+    if (event.getPhase() == HeadZoomEvent.PHASE_IDLE) {
+      //头部还原后换回静止分辨率，高分辨率只保留在缓存中
+      isHighResRequested = false;
+      highResBitmap = null;
+      if (isHighResShown && restBitmap != null) {
+        isHighResShown = false;
+        imageView.setImageBitmap(restBitmap);
+      }
+      return;
+    }
+    if (isHighResAvailable && !isHighResRequested
+        && event.getZoomFraction() >= highResFraction) {
+      isHighResRequested = true;
+      decode(true);
+    }
+  }
+
+  @Override
+  public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
+      int oldTop, int oldRight, int oldBottom) {
+    //放大过程中头部未放大时的尺寸不会变化，只在尺寸真正变化时重新加载
+    if (source != null && ((int) headZoomLayout.getHeadViewWidth() != loadedWidth
+        || (int) headZoomLayout.getHeadViewHeight() != loadedHeight)) {
+      loadRest();
+    }
+  }
+
+  private void loadRest() {
+    int width = (int) headZoomLayout.getHeadViewWidth();
+    int height = (int) headZoomLayout.getHeadViewHeight();
+    if (source == null || width <= 0 || height <= 0) {
+      return;
+    }
+    generation++;
+    loadedWidth = width;
+    loadedHeight = height;
+    restBitmap = null;
+    highResBitmap = null;
+    isHighResAvailable = false;
+    isHighResRequested = false;
+    isHighResShown = false;
+    decode(false);
+  }
+
+  /**
+   * 在后台线程解码，命中缓存时直接显示
+   */
+  private void decode(final boolean isHighRes) {
+    final int decodeGeneration = generation;
+    final Source decodeSource = source;
+    final int restWidth = loadedWidth;
+    final int restHeight = loadedHeight;
+    final float maxScale = 1 + headZoomLayout.getMaxZoomRatio();
+    //缩放模式下宽高一起放大，布局模式下只有高度变大
+    final int maxWidth = headZoomLayout.getZoomMode() == HeadZoomLayout.ZOOM_MODE_TRANSFORM
+        ? (int) (restWidth * maxScale) : restWidth;
+    final int maxHeight = (int) (restHeight * maxScale);
+    final String keyPrefix = decodeSource.getKey() + '@' + restWidth + 'x' + restHeight
+        + '/' + maxWidth + 'x' + maxHeight;
+    final LruCache<String, Bitmap> cache = getCache();
+    Bitmap cached = cache.get(keyPrefix + (isHighRes ? "#high" : "#rest"));
+    if (cached != null) {
+      //命中缓存时不知道原图尺寸，放大时再判断是否需要高分辨率
+      onDecoded(decodeGeneration, isHighRes, cached, true);
+      return;
+    }
+    ZoomExecutors.background().execute(new Runnable() {
+      @Override
+      public void run() {
+        final Bitmap[] result = new Bitmap[1];
+        final boolean[] hasHighRes = new boolean[1];
+        decodeRegion(decodeSource, restWidth, restHeight, maxWidth, maxHeight, isHighRes,
+            result, hasHighRes);
+        if (result[0] != null) {
+          cache.put(keyPrefix + (isHighRes ? "#high" : "#rest"), result[0]);
+        }
+        imageView.post(new Runnable() {
+          @Override
+          public void run() {
+            onDecoded(decodeGeneration, isHighRes, result[0], hasHighRes[0]);
+          }
+        });
+      }
+    });
+  }
+
+  private void onDecoded(int decodeGeneration, boolean isHighRes, Bitmap bitmap,
+      boolean hasHighRes) {
+    if (decodeGeneration != generation) {
+      return;
+    }
+    if (bitmap == null) {
+      //原图分辨率不足时不再尝试解码高分辨率
+      isHighResAvailable = isHighResAvailable && hasHighRes;
+      return;
+    }
+    if (!isHighRes) {
+      restBitmap = bitmap;
+      isHighResAvailable = hasHighRes;
+      if (!isHighResShown) {
+        imageView.setImageBitmap(bitmap);
+      }
+      return;
+    }
+    if (!isHighResRequested) {
+      //解码完成前头部已还原
+      return;
+    }
+    highResBitmap = bitmap;
+    isHighResShown = true;
+    imageView.setImageBitmap(highResBitmap);
+  }
+
+  /**
+   * 解码centerCrop在静止和放大到最大时可能显示的区域
+   *
+   * @param result 解码结果，失败时为null
+   * @param hasHighRes 放大到最大时是否需要比静止时更高的分辨率
+   */
+  private static void decodeRegion(Source source, int restWidth, int restHeight, int maxWidth,
+      int maxHeight, boolean isHighRes, Bitmap[] result, boolean[] hasHighRes) {
+    InputStream inputStream = null;
+    BitmapRegionDecoder decoder = null;
+    try {
+      inputStream = source.open();
+      //compileSdk 28中输入流只有这一个重载，API 31以上isShareable被忽略
+      decoder = BitmapRegionDecoder.newInstance(inputStream, false);
+      int sourceWidth = decoder.getWidth();
+      int sourceHeight = decoder.getHeight();
+      Rect region = new Rect();
+      computeRegion(sourceWidth, sourceHeight, restWidth, restHeight, maxWidth, maxHeight,
+          region);
+      int restSample = computeSampleSize(Math.max((float) restWidth / sourceWidth,
+          (float) restHeight / sourceHeight));
+      int highSample = computeSampleSize(Math.max((float) maxWidth / sourceWidth,
+          (float) maxHeight / sourceHeight));
+      hasHighRes[0] = highSample < restSample;
+      if (isHighRes && !hasHighRes[0]) {
+        return;
+      }
+      BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inSampleSize = isHighRes ? highSample : restSample;
+      result[0] = decoder.decodeRegion(region, options);
+    } catch (IOException e) {
+      //读取失败时result为null，保持当前显示的图片
+    } catch (OutOfMemoryError e) {
+      //内存不足时放弃这一次解码
+    } finally {
+      if (decoder != null) {
+        decoder.recycle();
+      }
+      if (inputStream != null) {
+        try {
+          inputStream.close();
+        } catch (IOException ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * 计算centerCrop在两种宽高比下显示区域的并集，按该区域的bitmap做centerCrop与使用原图效果一致
+   */
+  static void computeRegion(int sourceWidth, int sourceHeight, int restWidth, int restHeight,
+      int maxWidth, int maxHeight, Rect out) {
+    float restScale = Math.max((float) restWidth / sourceWidth,
+        (float) restHeight / sourceHeight);
+    float maxScale = Math.max((float) maxWidth / sourceWidth, (float) maxHeight / sourceHeight);
+    int width = (int) Math.ceil(Math.max(restWidth / restScale, maxWidth / maxScale));
+    int height = (int) Math.ceil(Math.max(restHeight / restScale, maxHeight / maxScale));
+    width = Math.min(width, sourceWidth);
+    height = Math.min(height, sourceHeight);
+    int left = (sourceWidth - width) / 2;
+    int top = (sourceHeight - height) / 2;
+    out.set(left, top, left + width, top + height);
+  }
+
+  /**
+   * 计算不低于显示分辨率的最大采样率
+   *
+   * @param scale 显示尺寸与原图尺寸的比例
+   */
+  static int computeSampleSize(float scale) {
+    int sampleSize = 1;
+    while (sampleSize * 2 * scale <= 1) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+}
@@ -1,45 +1,113 @@
 package com.hyc.headzoomlayout;
 
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import android.os.Build;
 import androidx.annotation.IdRes;
-import androidx.core.view.NestedScrollingChild;
+import androidx.tracing.Trace;
+import com.hyc.headzoomlayout.core.DampingCurve;
+import com.hyc.headzoomlayout.core.PowerDampingCurve;
+import com.hyc.headzoomlayout.core.ZoomPhysics;
+import com.hyc.headzoomlayout.core.ZoomRecoveryEngine;
+import androidx.core.view.NestedScrollingChild2;
+import androidx.core.view.NestedScrollingChild3;
 import androidx.core.view.NestedScrollingChildHelper;
-import androidx.core.view.NestedScrollingParent;
+import androidx.core.view.NestedScrollingParent3;
 import androidx.core.view.NestedScrollingParentHelper;
 import androidx.core.view.ViewCompat;
 import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.animation.DecelerateInterpolator;
 import android.widget.AbsListView;
 import android.widget.ImageView;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * 作者：贺宇成
  * 时间：2019.3.20
  * 描述：可放大头部背景图的布局
  * 支持RecyclerView、ListView、ScrollView、NestScrollView、LinearLayout等
+ * 实现NestedScrollingParent3，子View的fling到达顶部时按剩余速度放大头部
  * 定义布局时需要声明头部视图的id{@link HeadZoomLayout#headViewId}，
  * 同时需要将头部中的背景图片（ImageView对象）scaleType设置为centerCrop
  * {@link ImageView#setScaleType(ImageView.ScaleType)}。
- * 可设置最大下拉距离{@link HeadZoomLayout#mTotalDragDistance}
- * 可设置头部视图最大拉伸比例{@link HeadZoomLayout#maxZoomRatio}
+ * 可设置最大下拉距离{@link HeadZoomLayout#setTotalDragDistance(float)}
+ * 可设置头部视图最大拉伸比例{@link HeadZoomLayout#setMaxZoomRatio(float)}
  * 可设置是否放大头部{@link HeadZoomLayout#setZoomEnable(boolean)}
- * 可设置放大头部监听{@link HeadZoomLayout#addOnHeadZoomListener(OnHeadZoomListener)}
+ * 可设置放大头部监听{@link HeadZoomLayout#addOnHeadZoomListener(OnHeadZoomListener)}、
+ * {@link HeadZoomLayout#addOnHeadZoomEventListener(OnHeadZoomEventListener, Executor)}
  * 可设置下拉加速度变化比例，值越大加速度减少越快{@link HeadZoomLayout#setDragAccelerationRatio(float)}
+ * 可设置头部放大模式{@link HeadZoomLayout#setZoomMode(int)}
+ * 可设置自定义阻尼曲线{@link HeadZoomLayout#setDampingCurve(DampingCurve)}
+ * 可设置回弹模式{@link HeadZoomLayout#setRecoverMode(int)}
+ * 可设置放大期间头部的绘制策略{@link HeadZoomLayout#setLayerStrategy(int)}
+ * 可设置头部背景图随放大逐渐模糊{@link HeadZoomLayout#setMaxBlurRadius(float)}
+ * 可在API 31以上开启RenderEffect模糊和压暗{@link HeadZoomLayout#setRenderEffectEnabled(boolean)}
+ * 可设置自定义的顶部检测{@link HeadZoomLayout#setScrollBoundaryChecker(ScrollBoundaryChecker)}
+ * 可添加随头部一起缩放或平移的视差层级{@link HeadZoomLayout#addParallaxLayer(int, float, int)}
+ * 可设置下拉刷新，越过预备阈值时提前加载{@link HeadZoomLayout#setOnRefreshListener(OnRefreshListener, Executor)}
+ * 在列表中复用时可调用{@link HeadZoomLayout#reset()}还原状态
+ * 可开启手势性能统计{@link HeadZoomLayout#setOnGestureMetricsListener(OnGestureMetricsListener)}
+ * 可录制手势轨迹用于回放复现{@link HeadZoomLayout#setGestureTraceRecorder(GestureTraceRecorder)}
  */
-public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
-    NestedScrollingChild {
+public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent3,
+    NestedScrollingChild3 {
 
   public static final int INVALID_POINTER = -1;
+  /**
+   * 通过修改头部LayoutParams放大，会触发重新布局
+   */
+  public static final int ZOOM_MODE_LAYOUT = 0;
+  /**
+   * 通过缩放头部、平移头部下方的View放大，不触发测量和布局
+   */
+  public static final int ZOOM_MODE_TRANSFORM = 1;
+  /**
+   * 只测量和布局头部，头部下方的View通过offsetTopAndBottom移动，头部和下方View保持真实的边界，
+   * 不触发父布局的测量和布局，头部还原后父布局重新布局一次
+   */
+  public static final int ZOOM_MODE_SHIFT = 2;
+  /**
+   * 按maxRecoverTime计算时长回弹
+   */
+  public static final int RECOVER_MODE_DURATION = ZoomRecoveryEngine.MODE_DURATION;
+  /**
+   * 使用阻尼弹簧回弹
+   */
+  public static final int RECOVER_MODE_SPRING = ZoomRecoveryEngine.MODE_SPRING;
+  /**
+   * 放大期间正常绘制头部
+   */
+  public static final int LAYER_STRATEGY_NONE = 0;
+  /**
+   * 放大期间将头部提升为硬件层，适合{@link HeadZoomLayout#ZOOM_MODE_TRANSFORM}
+   */
+  public static final int LAYER_STRATEGY_HARDWARE = 1;
+  /**
+   * 放大期间绘制头部的快照，头部内容在放大期间不会刷新，无法录制快照或开启了模糊时使用硬件层
+   */
+  public static final int LAYER_STRATEGY_SNAPSHOT = 2;
+  /**
+   * 视差层级按比例缩放，比例为1时与头部一致
+   */
+  public static final int PARALLAX_SCALE = 0;
+  /**
+   * 视差层级只平移不缩放，比例为1时平移距离等于放大距离
+   */
+  public static final int PARALLAX_TRANSLATE = 1;
+  private static final String TRACE_DISPATCH_TOUCH_EVENT = "HeadZoomLayout#dispatchTouchEvent";
+  private static final String TRACE_INTERCEPT_TOUCH_EVENT = "HeadZoomLayout#onInterceptTouchEvent";
+  private static final String TRACE_ZOOM_HEAD_VIEW = "HeadZoomLayout#zoomHeadView";
+  private static final String TRACE_RECOVERY = "HeadZoomLayout#recovery";
   /**
    * 头部View的id（必填）
    */
@@ -47,32 +115,126 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   private int headViewId = 0;
   private View headView;
   private View childView;
+  /**
+   * 子View是否滑动到顶部的检查器，未设置时根据子View类型自动创建
+   */
+  private ScrollBoundaryChecker scrollBoundaryChecker;
+  private boolean isCustomScrollBoundaryChecker = false;
+  /**
+   * 头部未放大时的尺寸，随头部的布局变化更新
+   */
   private float headViewHeight;
   private float headViewWidth;
+  /**
+   * 头部未放大时的尺寸是否有效，无效时不放大头部
+   */
+  private boolean isHeadViewReady = false;
+  /**
+   * 布局模式下放大前头部的LayoutParams宽高，还原时恢复，保证头部仍能按内容变化尺寸
+   */
+  private int headLayoutWidth;
+  private int headLayoutHeight;
+  private boolean isHeadLayoutSaved = false;
+  /**
+   * 平移模式下头部下方View当前的偏移量
+   */
+  private int shiftOffset = 0;
+  private final HeadViewObserver headViewObserver = new HeadViewObserver();
+  private final ParallaxLayers parallaxLayers = new ParallaxLayers();
   private float mInitialDownY;
   private int mTouchSlop;
-  private float mTotalDragDistance;
-  private float maxZoomRatio;
-  private int mActivePointerId = INVALID_POINTER;
-  private ValueAnimator recoverAnimator;
+  /**
+   * 活跃手指跟踪，在dispatchTouchEvent中统一更新
+   */
+  private final ZoomPointerTracker pointerTracker = new ZoomPointerTracker();
+  private int mMaximumVelocity;
+  private VelocityTracker mVelocityTracker;
+  /**
+   * 子View的fling速度，头部放大时用作回弹初速度
+   */
+  private float mNestedFlingVelocity;
   private NestedScrollingChildHelper mNestedScrollingChildHelper;
   private NestedScrollingParentHelper mNestedScrollingParentHelper;
   private boolean mReturningToStart;
   private float mTotalUnconsumed;
   private boolean mNestedScrollInProgress;
+  /**
+   * 子View是否正在fling（非触摸滑动）
+   */
+  private boolean mNonTouchScrollInProgress;
+  /**
+   * 子View的fling到达顶部后已转换为头部放大
+   */
+  private boolean mIsAbsorbingFling;
+  private final int[] mNestedScrollConsumed = new int[2];
+  /**
+   * 从窗口移除时是否完全还原，用于RecyclerView、ViewPager2中复用的布局
+   */
+  private boolean isResetOnDetach = false;
   private final int[] mParentScrollConsumed;
   private final int[] mParentOffsetInWindow;
   private boolean mIsBeingDragged;
   private float mInitialMotionY;
   private float mInitialDownX;
-  private float dragAccelerationRatio;
-  private List<OnHeadZoomListener> onHeadZoomListeners;
+  private final ZoomEventDispatcher eventDispatcher = new ZoomEventDispatcher();
   private boolean isHorizontalMove = false;
   private boolean isVerticalMove = false;
   private float dragDistance = 0;
   private float mZoomDistance = 0;
-  private DecelerateInterpolator decelerateInterpolator;
-  private long maxRecoverTime;
+  private int zoomMode;
+  /**
+   * 阻尼换算和回弹等与Android无关的物理模型
+   */
+  private ZoomPhysics zoomPhysics;
+  private ZoomRecoveryEngine recoveryEngine;
+  /**
+   * 触摸和嵌套滑动只更新目标拖拽距离，由帧调度器在每个vsync统一放大头部
+   */
+  private ZoomFrameScheduler frameScheduler;
+  private float pendingDragDistance;
+  private int pendingZoomPhase;
+  private boolean hasPendingZoom = false;
+  private boolean isInZoomFrame = false;
+  private final ZoomLayerController layerController = new ZoomLayerController(this);
+  private final ZoomBlurCache blurCache = new ZoomBlurCache(this);
+  /**
+   * 下拉刷新，设置监听后生效
+   */
+  private final ZoomRefreshController refreshController = new ZoomRefreshController();
+  /**
+   * 需要模糊的头部背景图id，为0时使用头部View本身
+   */
+  @IdRes
+  private int blurImageViewId = 0;
+  /**
+   * API 31以上的RenderEffect模糊和压暗，开启且系统支持时才会创建
+   */
+  private ZoomRenderEffects renderEffects;
+  private boolean isRenderEffectEnabled = false;
+  private float maxDimAmount = 0;
+  /**
+   * 手势性能统计，开启后才会创建
+   */
+  private HeadZoomMetrics gestureMetrics;
+  private boolean isGestureMetricsActive = false;
+  private OnGestureMetricsListener onGestureMetricsListener;
+  private boolean isMetricsOverlayEnabled = false;
+  /**
+   * 手势轨迹录制，设置后才会记录
+   */
+  private GestureTraceRecorder traceRecorder;
+  /**
+   * 低延迟输入模式，按完整的手指路径累计拖拽距离，拖拽时请求非缓冲分发，并在API 34以上预测手指位置
+   */
+  private boolean isLowLatencyInput = false;
+  private boolean isUnbufferedDispatchRequested = false;
+  private ZoomMotionPredictor motionPredictor;
+  /**
+   * 预测的目标时间与帧开始时间的间隔，即预测到下一个vsync
+   */
+  private long predictionOffsetNanos;
+  private Paint metricsPaint;
+  private StringBuilder metricsText;
 
   public HeadZoomLayout(Context context) {
     this(context, null);
@@ -85,10 +247,17 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   public HeadZoomLayout(Context context, AttributeSet attrs, int defStyleAttr) {
     super(context, attrs, defStyleAttr);
     mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+    mMaximumVelocity = ViewConfiguration.get(context).getScaledMaximumFlingVelocity();
     mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
     mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
     this.mParentScrollConsumed = new int[2];
     this.mParentOffsetInWindow = new int[2];
+    frameScheduler = new ZoomFrameScheduler(this, new ZoomFrameScheduler.OnFrameListener() {
+      @Override
+      public void onZoomFrame(long frameTimeNanos) {
+        HeadZoomLayout.this.onZoomFrame(frameTimeNanos);
+      }
+    });
     initAttrs(context.obtainStyledAttributes(attrs, R.styleable.HeadZoomLayout));
   }
 
@@ -99,20 +268,59 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
     if (typedArray == null) {
       throw new RuntimeException("headViewId can not be null");
     }
-    maxZoomRatio = typedArray.getFloat(R.styleable.HeadZoomLayout_maxZoomRatio, 1.0f);
     headViewId = typedArray.getResourceId(R.styleable.HeadZoomLayout_headViewId, 0);
     this.setEnabled(typedArray.getBoolean(R.styleable.HeadZoomLayout_zoomEnable, true));
-    mTotalDragDistance = typedArray.getFloat(R.styleable.HeadZoomLayout_maxDragDistance, 1000f);
-    dragAccelerationRatio =
-        typedArray.getFloat(R.styleable.HeadZoomLayout_dragAccelerationRatio, 3.0f);
-    maxRecoverTime = typedArray.getInt(R.styleable.HeadZoomLayout_maxRecoverTime,400);
-    boolean useDecelerateInterpolator = typedArray.getBoolean(R.styleable.HeadZoomLayout_useDecelerateInterpolator,true);
-    if (useDecelerateInterpolator){
-      decelerateInterpolator = new DecelerateInterpolator(1.2f);
+    //阻尼和回弹属性与HeadZoomBehavior、HeadZoomRecyclerHelper共用
+    zoomPhysics = ZoomAttributes.createPhysics(typedArray);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+    zoomMode = typedArray.getInt(R.styleable.HeadZoomLayout_zoomMode, ZOOM_MODE_LAYOUT);
+    layerController.setLayerStrategy(
+        typedArray.getInt(R.styleable.HeadZoomLayout_layerStrategy, LAYER_STRATEGY_NONE));
+    blurImageViewId = typedArray.getResourceId(R.styleable.HeadZoomLayout_blurImageViewId, 0);
+    isResetOnDetach = typedArray.getBoolean(R.styleable.HeadZoomLayout_resetOnDetach, false);
+    refreshController.setThresholds(
+        typedArray.getFloat(R.styleable.HeadZoomLayout_refreshArmFraction, 0.3f),
+        typedArray.getFloat(R.styleable.HeadZoomLayout_refreshTriggerFraction, 0.6f));
+    refreshController.setRefreshingFraction(
+        typedArray.getFloat(R.styleable.HeadZoomLayout_refreshingFraction, 0.4f));
+    setLowLatencyInput(typedArray.getBoolean(R.styleable.HeadZoomLayout_lowLatencyInput, false));
+    int parallaxLayerIds =
+        typedArray.getResourceId(R.styleable.HeadZoomLayout_parallaxLayerIds, 0);
+    if (parallaxLayerIds != 0) {
+      initParallaxLayers(parallaxLayerIds,
+          typedArray.getResourceId(R.styleable.HeadZoomLayout_parallaxLayerRates, 0),
+          typedArray.getResourceId(R.styleable.HeadZoomLayout_parallaxLayerTransforms, 0));
     }
+    blurCache.setMaxBlurRadius(typedArray.getFloat(R.styleable.HeadZoomLayout_maxBlurRadius, 0));
+    maxDimAmount = typedArray.getFloat(R.styleable.HeadZoomLayout_maxDimAmount, 0);
+    setRenderEffectEnabled(
+        typedArray.getBoolean(R.styleable.HeadZoomLayout_renderEffectEnabled, false));
     typedArray.recycle();
   }
 
+  /**
+   * 从数组资源中读取视差层级
+   *
+   * @param idsRes 层级id数组
+   * @param ratesRes 层级比例数组，为0或长度不足时比例为1
+   * @param transformsRes 层级变换类型数组，为0或长度不足时为{@link HeadZoomLayout#PARALLAX_SCALE}
+   */
+  private void initParallaxLayers(int idsRes, int ratesRes, int transformsRes) {
+    Resources resources = getResources();
+    TypedArray ids = resources.obtainTypedArray(idsRes);
+    TypedArray rates = ratesRes != 0 ? resources.obtainTypedArray(ratesRes) : null;
+    int[] transforms = transformsRes != 0 ? resources.getIntArray(transformsRes) : null;
+    for (int i = 0; i < ids.length(); i++) {
+      float rate = rates != null && i < rates.length() ? rates.getFloat(i, 1.0f) : 1.0f;
+      int transform = transforms != null && i < transforms.length ? transforms[i] : PARALLAX_SCALE;
+      parallaxLayers.add(ids.getResourceId(i, 0), rate, transform);
+    }
+    ids.recycle();
+    if (rates != null) {
+      rates.recycle();
+    }
+  }
+
   /**
    * 兼容ScrollView等，从子View中请求拦截触摸事件
    */
@@ -131,9 +339,9 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
    */
   private float lastY;
   /**
-   * 是否给子View传递过down事件
+   * 头部复原后将手势交给子View，以及头部重新接管时的事件交接
    */
-  private boolean isDownToChildView = false;
+  private final ZoomTouchHandoff touchHandoff = new ZoomTouchHandoff(this);
 
   /**
    * 父布局拦截子View的事件导致子View无法继续继续获取TouchEvent
@@ -141,45 +349,82 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
    */
   @Override
   public boolean dispatchTouchEvent(MotionEvent ev) {
-    if (ev.getActionMasked() == MotionEvent.ACTION_MOVE
-        && this.isEnabled()
+    Trace.beginSection(TRACE_DISPATCH_TOUCH_EVENT);
+    try {
+      if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+        isUnbufferedDispatchRequested = false;
+        if (motionPredictor != null) {
+          predictionOffsetNanos = getFrameIntervalNanos();
+        }
+      }
+      if (traceRecorder != null) {
+        traceRecorder.onMotionEvent(ev);
+      }
+      if (motionPredictor != null) {
+        //在分发之前记录，预测器需要完整的事件流
+        motionPredictor.record(ev);
+      }
+      if (gestureMetrics != null) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+          //上一次手势没有回弹时在这里结束
+          endGestureMetrics();
+          beginGestureMetrics();
+        }
+        if (isGestureMetricsActive) {
+          gestureMetrics.onTouchSamples(1 + ev.getHistorySize());
+        }
+      }
+      if (pointerTracker.onTouchEvent(ev)) {
+        onActivePointerChanged(ev);
+      }
+      int action = ev.getActionMasked();
+      boolean handled = dispatchTouchEventInternal(ev);
+      if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+        pointerTracker.clear();
+      }
+      return handled;
+    } finally {
+      Trace.endSection();
+    }
+  }
+
+  private boolean dispatchTouchEventInternal(MotionEvent ev) {
+    int action = ev.getActionMasked();
+    if (action == MotionEvent.ACTION_DOWN) {
+      //复位给ChildView传递down事件标志
+      touchHandoff.reset();
+    }
+    if (action == MotionEvent.ACTION_MOVE
+        && this.isZoomAvailable()
         && this.mReturningToStart
         && isGetTouchEventFromChild(ev)) {
-      //更新滑动初始值
+      //更新滑动初始值，并取消子View的手势
       mInitialMotionY = lastY;
       mReturningToStart = false;
+      touchHandoff.takeOver(childView, ev);
     }
 
-    if (getZoomDistance() == 0 && (ev.getActionMasked() == MotionEvent.ACTION_POINTER_DOWN
-        || ev.getActionMasked() == MotionEvent.ACTION_POINTER_UP)) {
-      try{
-        childView.dispatchTouchEvent(ev);
-      }catch (IllegalArgumentException e){
-        e.printStackTrace();
-      }
+    if (touchHandoff.isChildReceiving() && action != MotionEvent.ACTION_MOVE) {
+      //子View已收到合成的down事件，手指变化和手势结束也需要转发，保证子View的事件序列完整
+      touchHandoff.forward(childView, ev);
     }
 
     if (!super.dispatchTouchEvent(ev)) {
       this.ensureTarget();
       //当下滑时将事件交给子View处理
-      if (ev.getActionMasked() == MotionEvent.ACTION_MOVE
-          && this.isEnabled()
+      if (action == MotionEvent.ACTION_MOVE
+          && this.isZoomAvailable()
           && this.mReturningToStart) {
-        //给ChildView传递一个down事件（在ScrollView中需要down事件来初始化滑动状态）
-        if (!isDownToChildView) {
-          ev.setAction(MotionEvent.ACTION_DOWN);
-          isDownToChildView = true;
+        //子View中切换手指时活跃手指同样会更新
+        int pointerIndex = pointerTracker.findActivePointerIndex(ev);
+        if (pointerIndex >= 0) {
+          lastY = ev.getY(pointerIndex);
         }
-        try {
-          lastY = ev.getY(ev.findPointerIndex(ev.getPointerId(mActivePointerId)));
-        } catch (IllegalArgumentException e) {
-          e.printStackTrace();
-          //子View中切换了手指
-          if (ev.getY() >= 0){
-            lastY = ev.getY();
-          }
+        if (!touchHandoff.isChildReceiving()) {
+          //给ChildView传递一个合成的down事件（在ScrollView中需要down事件来初始化滑动状态）
+          return touchHandoff.handOff(childView, ev);
         }
-        return childView.dispatchTouchEvent(ev);
+        return touchHandoff.forward(childView, ev);
       } else {
         return false;
       }
@@ -190,24 +435,27 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
 
   @Override
   public boolean onInterceptTouchEvent(MotionEvent ev) {
+    Trace.beginSection(TRACE_INTERCEPT_TOUCH_EVENT);
+    try {
+      return interceptTouchEvent(ev);
+    } finally {
+      Trace.endSection();
+    }
+  }
+
+  private boolean interceptTouchEvent(MotionEvent ev) {
     this.ensureTarget();
-    this.initHeadView();
     int action = ev.getActionMasked();
     if (this.mReturningToStart && action == MotionEvent.ACTION_DOWN) {
       this.mReturningToStart = false;
     }
 
-    if (this.isDownToChildView && action == MotionEvent.ACTION_DOWN) {
-      //复位给ChildView传递down事件标志
-      isDownToChildView = false;
-    }
-
     if (action == MotionEvent.ACTION_DOWN){
       this.isHorizontalMove = false;
       this.isVerticalMove = false;
     }
 
-    if (this.isEnabled()
+    if (this.isZoomAvailable()
         && !this.isHorizontalMove
         && !this.mReturningToStart
         && this.isChildScrollToTop()
@@ -215,33 +463,28 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
       int pointerIndex;
       switch (action) {
         case MotionEvent.ACTION_DOWN:
-          //记录活跃手指的Id
-          this.mActivePointerId = ev.getPointerId(0);
           this.mIsBeingDragged = false;
-          pointerIndex = ev.findPointerIndex(this.mActivePointerId);
+          pointerIndex = pointerTracker.findActivePointerIndex(ev);
           if (pointerIndex < 0) {
             return false;
           }
 
           this.mInitialDownY = ev.getY(pointerIndex);
           this.mInitialDownX = ev.getX(pointerIndex);
-          if (getZoomDistance() > 0) {
+          //回弹中按下时拦截并停止回弹；头部停在刷新高度时不拦截，子View可以正常点击
+          if (getZoomDistance() > 0
+              && (recoveryEngine.isRunning() || !refreshController.isRefreshing())) {
             return true;
           }
           break;
         case MotionEvent.ACTION_UP:
         case MotionEvent.ACTION_CANCEL:
           this.mIsBeingDragged = false;
-          this.mActivePointerId = INVALID_POINTER;
           this.mReturningToStart = false;
           this.isHorizontalMove = false;
           break;
         case MotionEvent.ACTION_MOVE:
-          if (this.mActivePointerId == INVALID_POINTER) {
-            return false;
-          }
-
-          pointerIndex = ev.findPointerIndex(this.mActivePointerId);
+          pointerIndex = pointerTracker.findActivePointerIndex(ev);
           if (pointerIndex < 0) {
             return false;
           }
@@ -267,8 +510,6 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
             return true;
           }
           break;
-        case MotionEvent.ACTION_POINTER_UP:
-          this.onSecondaryPointerUp(ev);
         default:
           break;
       }
@@ -282,11 +523,7 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
    * 是否从子View获取TouchEvent处理权限
    */
   private boolean isGetTouchEventFromChild(MotionEvent ev) {
-    if (this.mActivePointerId == INVALID_POINTER) {
-      return false;
-    }
-
-    int pointerIndex = ev.findPointerIndex(this.mActivePointerId);
+    int pointerIndex = pointerTracker.findActivePointerIndex(ev);
     if (pointerIndex < 0) {
       return false;
     }
@@ -301,9 +538,7 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   private void startDragging(float y) {
     float yDiff = y - this.mInitialDownY;
     if (yDiff > (float) this.mTouchSlop && !this.mIsBeingDragged) {
-      if (recoverAnimator != null && recoverAnimator.isRunning()) {
-        recoverAnimator.cancel();
-      }
+      recoveryEngine.cancel();
       //记录拖拽起始点，并更新拖拽标识
       this.mInitialMotionY = y;
       this.mIsBeingDragged = true;
@@ -312,16 +547,14 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   }
 
   private float getOverPlusDistance(){
-    float zoomDistance = getZoomDistance();
-    if (zoomDistance == 0){
-      return 0.0F;
-    }
-    return (float) (mTotalDragDistance * (1 - Math.pow(
-        1 - zoomDistance / maxZoomRatio / headViewHeight, 1.0f / dragAccelerationRatio)))/0.6f;
+    return zoomPhysics.getOverPlusDistance(getZoomDistance());
   }
 
   @Override
   protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    if (isGestureMetricsActive) {
+      gestureMetrics.onLayoutPass();
+    }
     final int width = getMeasuredWidth();
     final int height = getMeasuredHeight();
     if (getChildCount() == 0) {
@@ -339,6 +572,17 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
     final int childWidth = width - getPaddingLeft() - getPaddingRight();
     final int childHeight = (height - getPaddingTop() - getPaddingBottom());
     child.layout(childLeft, childTop, childLeft + childWidth, childTop + childHeight);
+    //在布局阶段查找头部和视差层级，触摸事件中不再查找
+    initHeadView();
+    if (zoomMode == ZOOM_MODE_SHIFT && mZoomDistance > 0 && headView != null) {
+      //子View重新布局后头部回到原始尺寸，按当前放大距离重新平移
+      shiftHeadView(mZoomDistance);
+    }
+    parallaxLayers.resolve(this);
+    if (blurCache.isEnabled() && mZoomDistance == 0) {
+      //提前在后台计算模糊
+      prepareBlurCache();
+    }
   }
 
   @Override
@@ -353,6 +597,40 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
         MeasureSpec.EXACTLY));
   }
 
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    //头部随布局移除时已解绑，重新添加到窗口时立即绑定
+    initHeadView();
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (isResetOnDetach) {
+      //复用场景下完全还原，重新绑定时不会继承上一次的放大
+      reset();
+    }
+    //防止Choreographer持有已移除的布局
+    cancelPendingZoom();
+    frameScheduler.cancel();
+    if (recoveryEngine.isRunning()) {
+      //不再逐帧回弹，直接还原头部
+      recoveryEngine.cancel();
+      zoomHeadView(0);
+      eventDispatcher.post(HeadZoomEvent.PHASE_IDLE, 0, 0);
+    }
+    layerController.release();
+    blurCache.invalidate();
+    //分发剩余的事件
+    eventDispatcher.deliver(System.nanoTime());
+    endGestureMetrics();
+    if (mVelocityTracker != null) {
+      mVelocityTracker.recycle();
+      mVelocityTracker = null;
+    }
+  }
+
   @Override
   public boolean performClick() {
     return super.performClick();
@@ -361,95 +639,78 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   @Override
   public boolean onTouchEvent(MotionEvent ev) {
     int action = ev.getActionMasked();
-    this.initHeadView();
+    if (mVelocityTracker == null) {
+      mVelocityTracker = VelocityTracker.obtain();
+    }
+    if (action == MotionEvent.ACTION_DOWN) {
+      mVelocityTracker.clear();
+    }
+    mVelocityTracker.addMovement(ev);
     if (this.mReturningToStart && action == MotionEvent.ACTION_DOWN) {
       this.mReturningToStart = false;
     }
-    if (this.isDownToChildView && action == MotionEvent.ACTION_DOWN) {
-      this.isDownToChildView = false;
-    }
 
     if (action == MotionEvent.ACTION_DOWN){
       this.isHorizontalMove = false;
       this.isVerticalMove = false;
     }
 
-    if (this.isEnabled()
+    if (this.isZoomAvailable()
         && !this.isHorizontalMove
         && !this.mReturningToStart
         && isChildScrollToTop()
         && !this.mNestedScrollInProgress) {
       float y;
-      float overscrollTop;
       int pointerIndex;
       switch (action) {
         case MotionEvent.ACTION_DOWN:
-          this.mActivePointerId = ev.getPointerId(0);
           this.mIsBeingDragged = false;
           break;
         case MotionEvent.ACTION_CANCEL:
         case MotionEvent.ACTION_UP:
           if (action == MotionEvent.ACTION_UP){
             performClick();
+          } else {
+            //手势被取消时不触发刷新
+            refreshController.cancelPrefetch();
           }
 
+          float velocity = 0;
+          int activePointerId = pointerTracker.getActivePointerId();
+          if (action == MotionEvent.ACTION_UP && activePointerId != INVALID_POINTER) {
+            mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+            velocity = zoomPhysics.getZoomVelocity(
+                mVelocityTracker.getYVelocity(activePointerId), this.dragDistance);
+          }
           this.mIsBeingDragged = false;
           this.mReturningToStart = false;
-          //回弹头部
-          this.recoveryHeadView();
-
-
-          this.mActivePointerId = INVALID_POINTER;
+          //回弹头部前先应用尚未绘制的拖拽距离
+          this.flushPendingZoom();
+          this.recoveryHeadView(velocity);
           return false;
         case MotionEvent.ACTION_MOVE:
-          pointerIndex = ev.findPointerIndex(this.mActivePointerId);
+          pointerIndex = pointerTracker.findActivePointerIndex(ev);
           if (pointerIndex < 0) {
             return false;
           }
 
-          y = ev.getY(pointerIndex);
-          this.startDragging(y);
-          if (this.mIsBeingDragged) {
-            overscrollTop = (y - this.mInitialMotionY);
-            this.mInitialMotionY = y;
-            if (overscrollTop > 0){
-              overscrollTop *= 0.6f;
+          if (isLowLatencyInput) {
+            //依次处理批量的历史采样，拖拽距离按完整的手指路径累计
+            for (int i = 0, size = ev.getHistorySize(); i < size; i++) {
+              if (!this.dragTo(ev.getHistoricalY(pointerIndex, i), ev)) {
+                return false;
+              }
             }
-            //放大头部
-            this.dragDistance += overscrollTop;
-            if (this.dragDistance > mTotalDragDistance){
-              this.dragDistance = mTotalDragDistance;
-            }
-            if (this.dragDistance < 0.0F && getZoomDistance() == 0) {
-              //头图已经复原，且向下滑动，交给子View处理
-              this.dragDistance = 0.0F;
-              this.isDownToChildView = false;
-              mReturningToStart = true;
-              return false;
-            }
-
-            this.zoomChildView(this.dragDistance);
+          }
+          y = ev.getY(pointerIndex);
+          if (!this.dragTo(y, ev)) {
+            return false;
           }
           break;
         case MotionEvent.ACTION_OUTSIDE:
         default:
+          //手指的按下和抬起在dispatchTouchEvent中处理
           break;
-        case MotionEvent.ACTION_POINTER_DOWN:
-          pointerIndex = ev.getActionIndex();
-          if (pointerIndex < 0) {
-            return false;
-          }
-          if (!mIsBeingDragged){
-            this.mInitialDownY = ev.getY(pointerIndex);
-            this.mInitialDownX = ev.getX(pointerIndex);
-          }
-          this.mActivePointerId = ev.getPointerId(pointerIndex);
-          if (mIsBeingDragged){
-            mInitialMotionY = ev.getY(pointerIndex);
-          }
-          break;
-        case MotionEvent.ACTION_POINTER_UP:
-          this.onSecondaryPointerUp(ev);
       }
       return true;
     } else {
@@ -458,174 +719,804 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   }
 
   /**
-   * 回弹头部视图
+   * 拖拽到指定位置并放大头部
+   *
+   * @return 头部已复原且向上滑动时返回false，后续事件交给子View处理
    */
-  private void recoveryHeadView() {
-    float distance = getZoomDistance();
-    if (distance <= 0) {
-      return;
+  private boolean dragTo(float y, MotionEvent ev) {
+    this.startDragging(y);
+    if (!this.mIsBeingDragged) {
+      return true;
     }
-    //开启回弹动画
-    recoverAnimator = ObjectAnimator.ofFloat(distance, 0.0F)
-        .setDuration((long) (maxRecoverTime * distance / maxZoomRatio / headViewHeight));
-    if (decelerateInterpolator != null){
-      recoverAnimator.setInterpolator(decelerateInterpolator);
+    if (isLowLatencyInput && !isUnbufferedDispatchRequested && Build.VERSION.SDK_INT >= 21) {
+      //拖拽期间每个触摸采样立即分发，不再等到下一帧批量分发
+      isUnbufferedDispatchRequested = true;
+      requestUnbufferedDispatch(ev);
+    }
+    float overscrollTop = (y - this.mInitialMotionY);
+    this.mInitialMotionY = y;
+    //放大头部
+    this.dragDistance = zoomPhysics.accumulateDrag(this.dragDistance, overscrollTop);
+    if (this.dragDistance < 0.0F && getZoomDistance() == 0 && !hasPendingZoom) {
+      //头图已经复原，且向下滑动，交给子View处理
+      this.dragDistance = 0.0F;
+      layerController.end();
+      mReturningToStart = true;
+      return false;
     }
-    recoverAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-      @Override
-      public void onAnimationUpdate(ValueAnimator animation) {
-        float distance = (float) animation.getAnimatedValue();
-        zoomHeadView(distance);
-        dispatchHeadZoomEvent(true, distance);
-      }
-    });
-    recoverAnimator.start();
-  }
 
-  private void zoomChildView(float overscrollTop) {
-    //根据拖拽距离，通过阻尼函数计算真实的放大距离
-    if (overscrollTop > mTotalDragDistance) overscrollTop = mTotalDragDistance;
-    if (overscrollTop < 0) overscrollTop = 0;
-    float percent =
-        (float) (1 - Math.pow((1 - overscrollTop / mTotalDragDistance), dragAccelerationRatio));
-    overscrollTop = percent * (maxZoomRatio * headViewHeight);
-    //放大头图
-    zoomHeadView(overscrollTop);
-    dispatchHeadZoomEvent(false, overscrollTop);
+    this.requestZoom(this.dragDistance, HeadZoomEvent.PHASE_DRAGGING);
+    return true;
   }
 
   /**
-   * 分发头图放大事件
+   * 低延迟模式下将拖拽距离预测到下一个vsync，只用于本帧的显示，不改变累计的拖拽距离
    */
-  private void dispatchHeadZoomEvent(boolean isRecovering, float zoomDistance) {
-    if (onHeadZoomListeners != null && onHeadZoomListeners.size() > 0) {
-      for (OnHeadZoomListener onHeadZoomListener : onHeadZoomListeners) {
-        if (onHeadZoomListener != null) {
-          onHeadZoomListener.onHeadZoom(isRecovering, zoomDistance);
-        }
-      }
+  private float predictDragDistance(float dragDistance, int phase, long frameTimeNanos) {
+    if (motionPredictor == null || phase != HeadZoomEvent.PHASE_DRAGGING || !mIsBeingDragged) {
+      return dragDistance;
+    }
+    float y = motionPredictor.predictY(frameTimeNanos + predictionOffsetNanos,
+        pointerTracker.getActivePointerId());
+    if (Float.isNaN(y)) {
+      return dragDistance;
     }
+    return Math.max(0, zoomPhysics.accumulateDrag(dragDistance, y - mInitialMotionY));
   }
 
   /**
-   * 放大头部视图
+   * 回弹头部视图
+   *
+   * @param velocity 松手时放大距离的变化速度（像素/秒）
    */
-  private void zoomHeadView(float distance) {
-    if (distance < 0)return;
-    ViewGroup.LayoutParams layoutParams = headView.getLayoutParams();
-    layoutParams.width = (int) headViewWidth;
-    layoutParams.height = (int) (headViewHeight + distance);
-    headView.setLayoutParams(layoutParams);
-    mZoomDistance = distance;
+  private void recoveryHeadView(float velocity) {
+    float distance = getZoomDistance();
+    //到达触发阈值时回弹到刷新高度并保持，onRefresh中可能直接结束刷新，回调后再读取状态
+    refreshController.onRelease(getZoomFraction(distance));
+    boolean isRefreshing = refreshController.isRefreshing();
+    if (distance <= 0 && !isRefreshing) {
+      if (eventDispatcher.getLastPhase() != HeadZoomEvent.PHASE_IDLE) {
+        dispatchHeadZoomEvent(HeadZoomEvent.PHASE_IDLE, 0);
+      }
+      layerController.end();
+      endGestureMetrics();
+      return;
+    }
+    //复用同一个回弹引擎，由帧调度器逐帧驱动
+    long now = System.nanoTime();
+    recoveryEngine.setTarget(isRefreshing ? getRefreshingDistance() : 0);
+    recoveryEngine.start(distance, velocity, now);
+    if (!recoveryEngine.isRunning()) {
+      //松手时恰好位于刷新高度
+      onRefreshingHeld();
+      endGestureMetrics();
+      return;
+    }
+    if (isGestureMetricsActive) {
+      gestureMetrics.onRecoveryStart(now);
+    }
+    frameScheduler.schedule();
   }
 
   /**
-   * 获取头部放大距离
+   * 每个vsync回调一次，应用最新的拖拽距离或回弹进度，并分发本帧的放大事件
    */
-  public float getZoomDistance() {
-    return mZoomDistance;
-  }
-
-  private void onSecondaryPointerUp(MotionEvent ev) {
-    final int pointerIndex = ev.getActionIndex();
-    final int pointerId = ev.getPointerId(pointerIndex);
-    if (pointerId == mActivePointerId) {
-      final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-      mActivePointerId = ev.getPointerId(newPointerIndex);
-      mInitialMotionY = ev.getY(newPointerIndex);
-      if (!mIsBeingDragged){
-        mInitialDownY = mInitialMotionY;
+  private void onZoomFrame(long frameTimeNanos) {
+    long scheduleTimeNanos = frameScheduler.getScheduleTimeNanos();
+    long workStartNanos = isGestureMetricsActive ? System.nanoTime() : 0;
+    boolean isRecoveryEnd = false;
+    isInZoomFrame = true;
+    //拖拽时会取消回弹，同一帧中只会有一个来源更新头部
+    if (hasPendingZoom) {
+      hasPendingZoom = false;
+      zoomChildView(predictDragDistance(pendingDragDistance, pendingZoomPhase, frameTimeNanos),
+          pendingZoomPhase);
+    } else if (recoveryEngine.isRunning()) {
+      Trace.beginSection(TRACE_RECOVERY);
+      try {
+        float distance = recoveryEngine.step(frameTimeNanos);
+        zoomHeadView(distance);
+        if (recoveryEngine.isRunning()) {
+          dispatchHeadZoomEvent(HeadZoomEvent.PHASE_RECOVERING, distance);
+          frameScheduler.schedule();
+        } else if (recoveryEngine.getTarget() > 0) {
+          onRefreshingHeld();
+          isRecoveryEnd = true;
+        } else {
+          dispatchHeadZoomEvent(HeadZoomEvent.PHASE_IDLE, distance);
+          isRecoveryEnd = true;
+        }
+      } finally {
+        Trace.endSection();
+      }
+    }
+    isInZoomFrame = false;
+    eventDispatcher.deliver(frameTimeNanos);
+    if (isGestureMetricsActive) {
+      gestureMetrics.onFrame(frameTimeNanos, scheduleTimeNanos,
+          System.nanoTime() - workStartNanos);
+      if (isRecoveryEnd) {
+        endGestureMetrics();
       }
     }
+    if (isMetricsOverlayEnabled) {
+      invalidate();
+    }
   }
 
   /**
-   * 获取布局下的子View是否滑动到顶部
+   * 记录目标拖拽距离，在下一帧统一放大头部
    *
-   * @return 是否滑动到顶部
+   * @param phase {@link HeadZoomEvent#PHASE_DRAGGING}或{@link HeadZoomEvent#PHASE_NESTED}
    */
-  private boolean isChildScrollToTop() {
-    return !ViewCompat.canScrollVertically(childView, -1);
+  private void requestZoom(float dragDistance, int phase) {
+    pendingDragDistance = dragDistance;
+    pendingZoomPhase = phase;
+    hasPendingZoom = true;
+    frameScheduler.schedule();
   }
 
-  private void ensureTarget() {
-    if (childView == null) {
-      childView = getChildAt(0);
+  /**
+   * 立即应用尚未执行的放大
+   */
+  private void flushPendingZoom() {
+    if (hasPendingZoom) {
+      frameScheduler.cancel();
+      hasPendingZoom = false;
+      zoomChildView(pendingDragDistance, pendingZoomPhase);
     }
   }
 
   /**
-   * 初始化头部视图
+   * 丢弃尚未执行的放大
    */
-  private void initHeadView() {
-    if (headView == null) {
-      headView = findViewById(headViewId);
-      if (headView != null) {
-        headViewHeight = headView.getMeasuredHeight();
-        headViewWidth = headView.getMeasuredWidth();
-        //防止getMeasure为0导致崩溃
-        this.setEnabled(headViewWidth > 0 && headViewHeight > 0);
-      } else {
-        this.setEnabled(false);
-      }
+  private void cancelPendingZoom() {
+    if (hasPendingZoom) {
+      frameScheduler.cancel();
+      hasPendingZoom = false;
     }
   }
 
-  @Override
-  public void setNestedScrollingEnabled(boolean enabled) {
-    this.mNestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+  private void zoomChildView(float overscrollTop, int phase) {
+    //根据拖拽距离，通过阻尼函数计算真实的放大距离
+    overscrollTop = zoomPhysics.getZoomDistance(overscrollTop);
+    //放大头图
+    zoomHeadView(overscrollTop);
+    refreshController.onPull(getZoomFraction(overscrollTop));
+    dispatchHeadZoomEvent(phase, overscrollTop);
   }
 
-  @Override
-  public boolean isNestedScrollingEnabled() {
-    return this.mNestedScrollingChildHelper.isNestedScrollingEnabled();
+  /**
+   * 头部停在刷新高度，恢复正常绘制，保证头部中的加载动画可以刷新
+   */
+  private void onRefreshingHeld() {
+    layerController.end();
+    dispatchHeadZoomEvent(HeadZoomEvent.PHASE_REFRESHING, getZoomDistance());
   }
 
-  @Override
-  public boolean startNestedScroll(int axes) {
-    return this.mNestedScrollingChildHelper.startNestedScroll(axes);
+  private float getRefreshingDistance() {
+    return zoomPhysics.getMaxZoomDistance() * refreshController.getRefreshingFraction();
   }
 
-  @Override
-  public void stopNestedScroll() {
-    this.mNestedScrollingChildHelper.stopNestedScroll();
+  /**
+   * 分发头图放大事件，只记录最新状态，在本帧或下一帧的{@link HeadZoomLayout#onZoomFrame(long)}中统一分发
+   */
+  private void dispatchHeadZoomEvent(int phase, float zoomDistance) {
+    if (!eventDispatcher.hasListeners()) {
+      return;
+    }
+    eventDispatcher.post(phase, zoomDistance, getZoomFraction(zoomDistance));
+    if (!isInZoomFrame) {
+      frameScheduler.schedule();
+    }
   }
 
-  @Override
-  public boolean hasNestedScrollingParent() {
-    return this.mNestedScrollingChildHelper.hasNestedScrollingParent();
+  /**
+   * 放大头部视图
+   */
+  private void zoomHeadView(float distance) {
+    if (distance < 0)return;
+    Trace.beginSection(TRACE_ZOOM_HEAD_VIEW);
+    try {
+      if (distance > 0 && mZoomDistance == 0) {
+        //放大开始时检查背景图是否变化
+        prepareBlurCache();
+        if (renderEffects != null) {
+          renderEffects.setTarget(findRenderEffectTarget());
+        }
+      }
+      if (distance > 0) {
+        //模糊在背景图自身的绘制中完成，隐藏头部的快照会把模糊一起隐藏
+        layerController.begin(headView, !blurCache.isReady());
+      }
+      int mode = zoomMode;
+      if (mode == ZOOM_MODE_TRANSFORM) {
+        transformHeadView(distance);
+      } else if (mode == ZOOM_MODE_SHIFT) {
+        shiftHeadView(distance);
+      } else if (distance > 0) {
+        ViewGroup.LayoutParams layoutParams = headView.getLayoutParams();
+        if (!isHeadLayoutSaved) {
+          headLayoutWidth = layoutParams.width;
+          headLayoutHeight = layoutParams.height;
+          isHeadLayoutSaved = true;
+        }
+        layoutParams.width = (int) headViewWidth;
+        layoutParams.height = (int) (headViewHeight + distance);
+        headView.setLayoutParams(layoutParams);
+      } else {
+        restoreHeadLayoutParams();
+      }
+      if (!parallaxLayers.isEmpty()) {
+        parallaxLayers.apply(headView, distance, (headViewHeight + distance) / headViewHeight,
+            mode == ZOOM_MODE_TRANSFORM);
+      }
+      if (renderEffects != null) {
+        renderEffects.apply(getZoomFraction(distance));
+      }
+      mZoomDistance = distance;
+      if (distance == 0 && mode == ZOOM_MODE_TRANSFORM) {
+        //放大期间头部尺寸可能已变化，缩放模式下不会触发布局变化，在这里同步
+        syncHeadViewSize();
+      }
+      if (layerController.isDrawingSnapshot()) {
+        //快照由布局绘制，需要重新绘制
+        invalidate();
+      }
+      blurCache.update(getZoomFraction(distance), (headViewHeight + distance) / headViewHeight,
+          mode == ZOOM_MODE_TRANSFORM);
+      if (distance == 0 && !mIsBeingDragged && !mNestedScrollInProgress) {
+        layerController.end();
+      }
+      if (isGestureMetricsActive) {
+        gestureMetrics.onZoomApplied();
+      }
+    } finally {
+      Trace.endSection();
+    }
   }
 
-  @Override
-  public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
-      int dyUnconsumed, int[] offsetInWindow) {
-    return this.mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
-        dxUnconsumed, dyUnconsumed, offsetInWindow);
+  /**
+   * 以头部顶部中点为支点等比缩放头部，并将头部之后的兄弟View向下平移，
+   * 只修改RenderNode属性，不会触发measure和layout
+   */
+  private void transformHeadView(float distance) {
+    float scale = (headViewHeight + distance) / headViewHeight;
+    headView.setPivotX(headViewWidth / 2);
+    headView.setPivotY(0);
+    headView.setScaleX(scale);
+    headView.setScaleY(scale);
+    translateViewsBelowHead(distance);
   }
 
-  @Override
-  public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
-    return this.mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed,
-        offsetInWindow);
+  /**
+   * 平移模式：只测量和布局头部，头部下方的View移动相同的距离
+   */
+  private void shiftHeadView(float distance) {
+    int restHeight = (int) headViewHeight;
+    if (shiftOffset != 0 && headView.getHeight() != restHeight + shiftOffset) {
+      //放大期间父布局重新布局过，头部和下方View已回到布局的位置
+      shiftOffset = 0;
+    }
+    int offset = (int) (headViewHeight + distance) - restHeight;
+    if (offset == shiftOffset) {
+      return;
+    }
+    int delta = offset - shiftOffset;
+    //先更新偏移量，头部布局变化时不会被当作原始尺寸同步
+    shiftOffset = offset;
+    int width = (int) headViewWidth;
+    int left = headView.getLeft();
+    int top = headView.getTop();
+    headView.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+        MeasureSpec.makeMeasureSpec(restHeight + offset, MeasureSpec.EXACTLY));
+    headView.layout(left, top, left + width, top + restHeight + offset);
+    offsetViewsBelowHead(delta);
+    if (offset == 0 && headView.getParent() != null) {
+      //还原后父布局重新布局一次，放大期间被忽略的尺寸变化在这里生效
+      headView.getParent().requestLayout();
+    }
   }
 
-  public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
-    //当头部视图未完成恢复时拦截子View的Fling事件，防止Fling结束时头部未还原导致ScrollListener中的scrollY计算错误
-    if (getZoomDistance() > 0) {
-      return true;
+  private void offsetViewsBelowHead(int offset) {
+    if (offset == 0 || !(headView.getParent() instanceof ViewGroup)) {
+      return;
+    }
+    ViewGroup parent = (ViewGroup) headView.getParent();
+    for (int i = parent.indexOfChild(headView) + 1; i < parent.getChildCount(); i++) {
+      ViewCompat.offsetTopAndBottom(parent.getChildAt(i), offset);
     }
-    return this.dispatchNestedPreFling(velocityX, velocityY);
   }
 
-  public boolean onNestedFling(View target, float velocityX, float velocityY,
-      boolean consumed) {
-    return this.dispatchNestedFling(velocityX, velocityY, consumed);
-  }
+  /**
+   * 平移头部之后的兄弟View
+   */
+  private void translateViewsBelowHead(float translationY) {
+    if (!(headView.getParent() instanceof ViewGroup)) {
+      return;
+    }
+    ViewGroup parent = (ViewGroup) headView.getParent();
+    for (int i = parent.indexOfChild(headView) + 1; i < parent.getChildCount(); i++) {
+      parent.getChildAt(i).setTranslationY(translationY);
+    }
+  }
+
+  /**
+   * 将头部视图还原到未放大的状态
+   */
+  private void restoreHeadView() {
+    if (headView == null) {
+      return;
+    }
+    cancelPendingZoom();
+    recoveryEngine.cancel();
+    layerController.end();
+    if (mZoomDistance > 0) {
+      dispatchHeadZoomEvent(HeadZoomEvent.PHASE_IDLE, 0);
+    }
+    int mode = zoomMode;
+    if (mode == ZOOM_MODE_TRANSFORM) {
+      headView.setScaleX(1.0f);
+      headView.setScaleY(1.0f);
+      translateViewsBelowHead(0);
+    } else if (mode == ZOOM_MODE_SHIFT) {
+      shiftHeadView(0);
+    } else {
+      restoreHeadLayoutParams();
+    }
+    parallaxLayers.apply(headView, 0, 1, false);
+    if (renderEffects != null) {
+      renderEffects.clear();
+    }
+    mZoomDistance = 0;
+    if (mode == ZOOM_MODE_TRANSFORM) {
+      syncHeadViewSize();
+    }
+  }
+
+  /**
+   * 布局模式下恢复头部放大前的LayoutParams
+   */
+  private void restoreHeadLayoutParams() {
+    if (!isHeadLayoutSaved) {
+      return;
+    }
+    isHeadLayoutSaved = false;
+    ViewGroup.LayoutParams layoutParams = headView.getLayoutParams();
+    layoutParams.width = headLayoutWidth;
+    layoutParams.height = headLayoutHeight;
+    headView.setLayoutParams(layoutParams);
+  }
+
+  /**
+   * 立即还原头部并清空手势、嵌套滑动和回弹状态，尚未分发的事件会立即分发。
+   * 在RecyclerView、ViewPager2中复用布局时，可在onBindViewHolder或onViewRecycled中调用，
+   * 复用的布局不会继承上一次未完成的放大或回弹
+   */
+  public void reset() {
+    restoreHeadView();
+    cancelPendingZoom();
+    recoveryEngine.cancel();
+    frameScheduler.cancel();
+    layerController.end();
+    eventDispatcher.deliver(System.nanoTime());
+    endGestureMetrics();
+    this.mIsBeingDragged = false;
+    pointerTracker.clear();
+    this.mReturningToStart = false;
+    touchHandoff.reset();
+    this.isHorizontalMove = false;
+    this.isVerticalMove = false;
+    this.dragDistance = 0;
+    this.mTotalUnconsumed = 0;
+    this.mNestedFlingVelocity = 0;
+    this.mNestedScrollInProgress = false;
+    this.mNonTouchScrollInProgress = false;
+    this.mIsAbsorbingFling = false;
+    if (mVelocityTracker != null) {
+      mVelocityTracker.clear();
+    }
+    if (motionPredictor != null) {
+      motionPredictor.reset();
+    }
+    refreshController.reset();
+  }
+
+  /**
+   * 设置从窗口移除时是否调用{@link HeadZoomLayout#reset()}，
+   * 布局在RecyclerView、ViewPager2中复用时推荐开启
+   */
+  public void setResetOnDetach(boolean resetOnDetach) {
+    this.isResetOnDetach = resetOnDetach;
+  }
+
+  public boolean isResetOnDetach() {
+    return isResetOnDetach;
+  }
+
+  /**
+   * 设置是否开启低延迟输入，开启后拖拽使用批量的历史采样累计距离，拖拽期间请求非缓冲分发，
+   * API 34以上设备支持时将手指位置预测到下一个vsync。关闭时使用默认的拖拽处理
+   */
+  public void setLowLatencyInput(boolean lowLatencyInput) {
+    this.isLowLatencyInput = lowLatencyInput;
+    if (!lowLatencyInput) {
+      motionPredictor = null;
+    } else if (motionPredictor == null && Build.VERSION.SDK_INT >= 34) {
+      motionPredictor = ZoomMotionPredictor.create(getContext());
+    }
+  }
+
+  public boolean isLowLatencyInput() {
+    return isLowLatencyInput;
+  }
+
+  /**
+   * 开始统计一次手势
+   */
+  private void beginGestureMetrics() {
+    gestureMetrics.reset(System.nanoTime(), getFrameIntervalNanos());
+    isGestureMetricsActive = true;
+  }
+
+  /**
+   * 结束统计，发生过放大时回调统计结果
+   */
+  private void endGestureMetrics() {
+    if (!isGestureMetricsActive) {
+      return;
+    }
+    isGestureMetricsActive = false;
+    gestureMetrics.onGestureEnd(System.nanoTime());
+    if (onGestureMetricsListener != null && gestureMetrics.getZoomApplications() > 0) {
+      onGestureMetricsListener.onGestureMetrics(gestureMetrics);
+    }
+  }
+
+  private long getFrameIntervalNanos() {
+    Display display = ViewCompat.getDisplay(this);
+    float refreshRate = display != null ? display.getRefreshRate() : 60f;
+    if (refreshRate < 1) {
+      refreshRate = 60f;
+    }
+    return (long) (1000000000L / refreshRate);
+  }
+
+  @Override
+  protected void dispatchDraw(Canvas canvas) {
+    super.dispatchDraw(canvas);
+    if (layerController.isDrawingSnapshot()) {
+      layerController.drawSnapshot(canvas, (headViewHeight + mZoomDistance) / headViewHeight,
+          zoomMode == ZOOM_MODE_LAYOUT);
+    }
+    if (isMetricsOverlayEnabled && gestureMetrics != null) {
+      drawMetricsOverlay(canvas);
+    }
+  }
+
+  /**
+   * 在左上角绘制实时统计，仅用于调试
+   */
+  private void drawMetricsOverlay(Canvas canvas) {
+    if (metricsPaint == null) {
+      metricsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+      metricsPaint.setColor(Color.YELLOW);
+      metricsPaint.setShadowLayer(2, 1, 1, Color.BLACK);
+      metricsPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11,
+          getResources().getDisplayMetrics()));
+      metricsText = new StringBuilder();
+    }
+    HeadZoomMetrics metrics = gestureMetrics;
+    float lineHeight = metricsPaint.getFontSpacing();
+    float x = getPaddingLeft() + lineHeight / 2;
+    float y = getPaddingTop() + lineHeight * 2;
+    metricsText.setLength(0);
+    metricsText.append("zoom ").append((int) mZoomDistance).append("px  mode ").append(zoomMode);
+    canvas.drawText(metricsText, 0, metricsText.length(), x, y, metricsPaint);
+    y += lineHeight;
+    metricsText.setLength(0);
+    metricsText.append("samples ").append(metrics.getTouchSamples())
+        .append("  zooms ").append(metrics.getZoomApplications())
+        .append("  layouts ").append(metrics.getLayoutPasses());
+    canvas.drawText(metricsText, 0, metricsText.length(), x, y, metricsPaint);
+    y += lineHeight;
+    metricsText.setLength(0);
+    metricsText.append("frames ").append(metrics.getFrames())
+        .append("  slow ").append(metrics.getSlowFrames())
+        .append("  max work ").append(metrics.getMaxFrameWorkNanos() / 1000).append("us");
+    canvas.drawText(metricsText, 0, metricsText.length(), x, y, metricsPaint);
+  }
+
+  /**
+   * 获取头部放大距离
+   */
+  public float getZoomDistance() {
+    return mZoomDistance;
+  }
+
+  /**
+   * 获取头部放大距离占最大放大距离的比例
+   *
+   * @return 取值[0,1]
+   */
+  public float getZoomFraction() {
+    return getZoomFraction(mZoomDistance);
+  }
+
+  private float getZoomFraction(float zoomDistance) {
+    return zoomPhysics.getZoomFraction(zoomDistance);
+  }
+
+  /**
+   * 获取头部未放大时的宽度，头部尚未测量时为0
+   */
+  public float getHeadViewWidth() {
+    return headViewWidth;
+  }
+
+  /**
+   * 获取头部未放大时的高度，头部尚未测量时为0
+   */
+  public float getHeadViewHeight() {
+    return headViewHeight;
+  }
+
+  /**
+   * 活跃手指按下、切换时更新拖拽起点
+   */
+  private void onActivePointerChanged(MotionEvent ev) {
+    final int pointerIndex = pointerTracker.findActivePointerIndex(ev);
+    if (pointerIndex < 0) {
+      return;
+    }
+    //以新的活跃手指为起点继续拖拽，避免切换手指时头部跳动
+    mInitialMotionY = ev.getY(pointerIndex);
+    lastY = mInitialMotionY;
+    if (!mIsBeingDragged){
+      mInitialDownY = mInitialMotionY;
+      mInitialDownX = ev.getX(pointerIndex);
+    }
+  }
+
+  /**
+   * 获取布局下的子View是否滑动到顶部
+   *
+   * @return 是否滑动到顶部
+   */
+  private boolean isChildScrollToTop() {
+    this.ensureTarget();
+    return scrollBoundaryChecker == null || scrollBoundaryChecker.isScrollToTop();
+  }
+
+  private void ensureTarget() {
+    if (childView == null) {
+      childView = getChildAt(0);
+      if (childView != null && !isCustomScrollBoundaryChecker) {
+        scrollBoundaryChecker = ScrollBoundaryCheckers.create(childView);
+      }
+    }
+  }
+
+  /**
+   * 查找并绑定头部视图，只在布局阶段和设置头部id时调用
+   */
+  private void initHeadView() {
+    if (headView == null && headViewId != 0) {
+      View view = findViewById(headViewId);
+      if (view != null) {
+        bindHeadView(view);
+      }
+    }
+  }
+
+  private void bindHeadView(View view) {
+    headView = view;
+    headView.addOnLayoutChangeListener(headViewObserver);
+    headView.addOnAttachStateChangeListener(headViewObserver);
+    syncHeadViewSize();
+  }
+
+  /**
+   * 还原并解绑头部视图，下一次布局时重新查找
+   */
+  private void unbindHeadView() {
+    if (headView == null) {
+      return;
+    }
+    restoreHeadView();
+    //层级通常位于头部内部，与头部一起重新查找
+    parallaxLayers.release();
+    headView.removeOnLayoutChangeListener(headViewObserver);
+    headView.removeOnAttachStateChangeListener(headViewObserver);
+    headView = null;
+    isHeadViewReady = false;
+  }
+
+  /**
+   * 头部未放大时记录头部的尺寸，放大过程中的尺寸变化会在头部还原后同步
+   */
+  private void syncHeadViewSize() {
+    if (headView == null || mZoomDistance != 0 || shiftOffset != 0 || hasPendingZoom
+        || recoveryEngine.isRunning()) {
+      return;
+    }
+    int width = headView.getWidth();
+    int height = headView.getHeight();
+    //头部尚未测量时暂不放大，测量后自动恢复
+    isHeadViewReady = width > 0 && height > 0;
+    if (!isHeadViewReady || (width == headViewWidth && height == headViewHeight)) {
+      return;
+    }
+    headViewWidth = width;
+    headViewHeight = height;
+    zoomPhysics.setHeadHeight(headViewHeight);
+  }
+
+  /**
+   * 是否可以放大头部
+   */
+  private boolean isZoomAvailable() {
+    return this.isEnabled() && isHeadViewReady;
+  }
+
+  /**
+   * 监听头部的布局变化和移除
+   */
+  private class HeadViewObserver implements View.OnLayoutChangeListener,
+      View.OnAttachStateChangeListener {
+
+    @Override
+    public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
+        int oldTop, int oldRight, int oldBottom) {
+      if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop) {
+        syncHeadViewSize();
+      }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+    }
 
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+      //头部被移除或随布局一起移除，重新添加后在布局时重新绑定
+      unbindHeadView();
+    }
+  }
+
+  /**
+   * 查找需要模糊的头部背景图
+   */
+  private ImageView findBlurImageView() {
+    View view = blurImageViewId != 0 ? headView.findViewById(blurImageViewId) : headView;
+    return view instanceof ImageView ? (ImageView) view : null;
+  }
+
+  /**
+   * 查找RenderEffect的目标，不要求是ImageView，找不到背景图时使用头部本身
+   */
+  private View findRenderEffectTarget() {
+    View view = blurImageViewId != 0 ? headView.findViewById(blurImageViewId) : null;
+    return view != null ? view : headView;
+  }
+
+  /**
+   * 背景图变化时重新计算模糊缓存，只能在头部未放大时调用
+   */
+  private void prepareBlurCache() {
+    if (renderEffects != null || !blurCache.isEnabled() || headView == null) {
+      return;
+    }
+    blurCache.prepare(findBlurImageView());
+  }
+
+  @Override
+  public void setNestedScrollingEnabled(boolean enabled) {
+    this.mNestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+  }
+
+  @Override
+  public boolean isNestedScrollingEnabled() {
+    return this.mNestedScrollingChildHelper.isNestedScrollingEnabled();
+  }
+
+  @Override
+  public boolean startNestedScroll(int axes) {
+    return this.mNestedScrollingChildHelper.startNestedScroll(axes);
+  }
+
+  @Override
+  public boolean startNestedScroll(int axes, int type) {
+    return this.mNestedScrollingChildHelper.startNestedScroll(axes, type);
+  }
+
+  @Override
+  public void stopNestedScroll() {
+    this.mNestedScrollingChildHelper.stopNestedScroll();
+  }
+
+  @Override
+  public void stopNestedScroll(int type) {
+    this.mNestedScrollingChildHelper.stopNestedScroll(type);
+  }
+
+  @Override
+  public boolean hasNestedScrollingParent() {
+    return this.mNestedScrollingChildHelper.hasNestedScrollingParent();
+  }
+
+  @Override
+  public boolean hasNestedScrollingParent(int type) {
+    return this.mNestedScrollingChildHelper.hasNestedScrollingParent(type);
+  }
+
+  @Override
+  public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+      int dyUnconsumed, int[] offsetInWindow) {
+    return this.mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+        dxUnconsumed, dyUnconsumed, offsetInWindow);
+  }
+
+  @Override
+  public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+      int dyUnconsumed, int[] offsetInWindow, int type) {
+    return this.mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+        dxUnconsumed, dyUnconsumed, offsetInWindow, type);
+  }
+
+  @Override
+  public void dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+      int dyUnconsumed, int[] offsetInWindow, int type, int[] consumed) {
+    this.mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+        dxUnconsumed, dyUnconsumed, offsetInWindow, type, consumed);
+  }
+
+  @Override
+  public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+    return this.mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed,
+        offsetInWindow);
+  }
+
+  @Override
+  public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow,
+      int type) {
+    return this.mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed,
+        offsetInWindow, type);
+  }
+
+  @Override
+  public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+    if (traceRecorder != null) {
+      traceRecorder.onNestedPreFling(velocityX, velocityY);
+    }
+    if (getZoomDistance() > 0) {
+      if (velocityY > 0 && target instanceof NestedScrollingChild2) {
+        //向上fling时不拦截，由非触摸滑动先缩小头部，剩余的距离继续滑动内容
+        return this.dispatchNestedPreFling(velocityX, velocityY);
+      }
+      //当头部视图未完成恢复时拦截子View的Fling事件，防止Fling结束时头部未还原导致ScrollListener中的scrollY计算错误
+      //记录fling速度，停止嵌套滑动时作为回弹初速度，velocityY向上为正
+      mNestedFlingVelocity = -velocityY;
+      return true;
+    }
+    return this.dispatchNestedPreFling(velocityX, velocityY);
+  }
+
+  @Override
+  public boolean onNestedFling(View target, float velocityX, float velocityY,
+      boolean consumed) {
+    if (traceRecorder != null) {
+      traceRecorder.onNestedFling(velocityX, velocityY, consumed);
+    }
+    return this.dispatchNestedFling(velocityX, velocityY, consumed);
+  }
+
+  @Override
   public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
     return this.mNestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
   }
 
+  @Override
   public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
     return this.mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
   }
@@ -633,50 +1524,136 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   @Override
   public boolean onStartNestedScroll(View child, View target,
       int nestedScrollAxes) {
-    return this.isEnabled()
+    return onStartNestedScroll(child, target, nestedScrollAxes, ViewCompat.TYPE_TOUCH);
+  }
+
+  @Override
+  public boolean onStartNestedScroll(View child, View target, int axes, int type) {
+    if (traceRecorder != null) {
+      traceRecorder.onStartNestedScroll(axes, type);
+    }
+    return this.isZoomAvailable()
         && !this.mReturningToStart
-        && (nestedScrollAxes & 2) != 0;
+        && (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+  }
+
+  @Override
+  public void onNestedScrollAccepted(View child, View target, int axes) {
+    onNestedScrollAccepted(child, target, axes, ViewCompat.TYPE_TOUCH);
+  }
+
+  @Override
+  public void onNestedScrollAccepted(View child, View target, int axes, int type) {
+    if (traceRecorder != null) {
+      traceRecorder.onNestedScrollAccepted(axes, type);
+    }
+    this.mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes, type);
+    this.startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL, type);
+    if (type == ViewCompat.TYPE_NON_TOUCH) {
+      //子View开始fling，触摸阶段的下拉距离由fling继续消耗
+      this.mNonTouchScrollInProgress = true;
+      this.mIsAbsorbingFling = false;
+      return;
+    }
+    if (gestureMetrics != null && !isGestureMetricsActive) {
+      beginGestureMetrics();
+    }
+    //与触摸拖拽一致，重新开始嵌套滑动时停止回弹
+    this.recoveryEngine.cancel();
+    this.mTotalUnconsumed = getOverPlusDistance();
+    this.mNestedFlingVelocity = 0.0F;
+    this.mNestedScrollInProgress = true;
+  }
+
+  @Override
+  public void onStopNestedScroll(View target) {
+    onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
+  }
+
+  @Override
+  public void onStopNestedScroll(View target, int type) {
+    if (traceRecorder != null) {
+      traceRecorder.onStopNestedScroll(type);
+    }
+    this.mNestedScrollingParentHelper.onStopNestedScroll(target, type);
+    if (type == ViewCompat.TYPE_NON_TOUCH) {
+      this.mNonTouchScrollInProgress = false;
+      this.mIsAbsorbingFling = false;
+    } else {
+      this.mNestedScrollInProgress = false;
+    }
+    this.flushPendingZoom();
+    if (!this.mNestedScrollInProgress && !this.mNonTouchScrollInProgress) {
+      if (this.mTotalUnconsumed > 0.0F && !recoveryEngine.isRunning()) {
+        //停止嵌套滑动时，恢复头部视图
+        this.recoveryHeadView(
+            zoomPhysics.getZoomVelocity(this.mNestedFlingVelocity, this.mTotalUnconsumed));
+      }
+      if (!recoveryEngine.isRunning()) {
+        layerController.end();
+      }
+      this.mNestedFlingVelocity = 0.0F;
+      this.mTotalUnconsumed = 0.0F;
+    }
+    this.stopNestedScroll(type);
   }
 
   @Override
-  public void onNestedScrollAccepted(View child, View target, int axes) {
-    this.mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
-    this.startNestedScroll(axes & 2);
-    this.mTotalUnconsumed = getOverPlusDistance();
-    this.mNestedScrollInProgress = true;
+  public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+      int dyUnconsumed) {
+    onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+        ViewCompat.TYPE_TOUCH);
   }
 
   @Override
-  public void onStopNestedScroll(View target) {
-    this.mNestedScrollingParentHelper.onStopNestedScroll(target);
-    this.mNestedScrollInProgress = false;
-    if (this.mTotalUnconsumed > 0.0F) {
-      //停止嵌套滑动时，恢复头部视图
-      this.recoveryHeadView();
-    }
-    this.mTotalUnconsumed = 0.0F;
-    this.stopNestedScroll();
+  public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+      int dyUnconsumed, int type) {
+    int[] consumed = this.mNestedScrollConsumed;
+    consumed[0] = 0;
+    consumed[1] = 0;
+    onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type, consumed);
   }
 
   @Override
   public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
-      int dyUnconsumed) {
+      int dyUnconsumed, int type, int[] consumed) {
+    if (traceRecorder != null) {
+      traceRecorder.onNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type);
+    }
+    //先一次性交给上级处理，再处理上级剩余的距离
+    final int consumedBeforeParents = consumed[1];
     this.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
-        this.mParentOffsetInWindow);
-    int dy = dyUnconsumed + this.mParentOffsetInWindow[1];
-    if (dy < 0 && this.isChildScrollToTop()) {
-      //嵌套滑动时放大头部，mTotalUnconsumed为下拉距离
-      dy *= 0.6f;
-      this.mTotalUnconsumed += (float) Math.abs(dy);
-      if (this.mTotalUnconsumed > mTotalDragDistance){
-        this.mTotalUnconsumed = mTotalDragDistance;
+        this.mParentOffsetInWindow, type, consumed);
+    final int unconsumedAfterParents = dyUnconsumed - (consumed[1] - consumedBeforeParents);
+    //上级没有通过consumed报告消耗时，按照布局在窗口中的偏移计算
+    final int dy = unconsumedAfterParents == 0
+        ? dyUnconsumed + this.mParentOffsetInWindow[1] : unconsumedAfterParents;
+    if (type == ViewCompat.TYPE_NON_TOUCH) {
+      if (this.mIsAbsorbingFling) {
+        //fling已转换为头部放大，消耗剩余的距离，防止子View显示边缘效果
+        consumed[1] += unconsumedAfterParents;
+      } else if (dy < 0 && !this.mNestedScrollInProgress && this.isChildScrollToTop()
+          && this.absorbFling(dyConsumed + dy)) {
+        consumed[1] += unconsumedAfterParents;
       }
-      this.zoomChildView(this.mTotalUnconsumed);
+    } else if (dy < 0 && this.isChildScrollToTop()) {
+      //嵌套滑动时放大头部，mTotalUnconsumed为下拉距离
+      this.mTotalUnconsumed = zoomPhysics.accumulateDrag(this.mTotalUnconsumed, -dy);
+      this.requestZoom(this.mTotalUnconsumed, HeadZoomEvent.PHASE_NESTED);
+      consumed[1] += unconsumedAfterParents;
     }
   }
 
   @Override
   public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+    onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
+  }
+
+  @Override
+  public void onNestedPreScroll(View target, int dx, int dy, int[] consumed, int type) {
+    if (traceRecorder != null) {
+      traceRecorder.onNestedPreScroll(dx, dy, type);
+    }
     if (dy >= 0 && this.mTotalUnconsumed > 0.0F) {
       if ((float) dy > this.mTotalUnconsumed) {
         consumed[1] = dy - (int) this.mTotalUnconsumed;
@@ -685,17 +1662,50 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
         this.mTotalUnconsumed -= (float) dy;
         consumed[1] = dy;
       }
-      this.zoomChildView(this.mTotalUnconsumed);
+      this.requestZoom(this.mTotalUnconsumed, HeadZoomEvent.PHASE_NESTED);
     }
 
     int[] parentConsumed = this.mParentScrollConsumed;
     if (this.dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed,
-        null)) {
+        null, type)) {
       consumed[0] += parentConsumed[0];
       consumed[1] += parentConsumed[1];
     }
   }
 
+  /**
+   * 子View的fling到达顶部时，按剩余速度放大头部并回弹
+   * fling不是用户的下拉，不会预加载或触发刷新
+   *
+   * @param dy 到达顶部这一帧fling的滑动距离，小于0
+   * @return 是否已转换为头部放大
+   */
+  private boolean absorbFling(int dy) {
+    if (!this.isZoomAvailable()) {
+      return false;
+    }
+    //用一帧的滑动距离估算剩余速度
+    float velocity = Math.min(-dy * 1000000000f / getFrameIntervalNanos(), mMaximumVelocity);
+    float zoomVelocity = zoomPhysics.getZoomVelocity(velocity, getOverPlusDistance());
+    long now = System.nanoTime();
+    recoveryEngine.setTarget(refreshController.isRefreshing() ? getRefreshingDistance() : 0);
+    recoveryEngine.start(getZoomDistance(), zoomVelocity, now);
+    if (!recoveryEngine.isRunning()) {
+      return false;
+    }
+    //之前的下拉留下的预加载不会再被松手确认，立即取消
+    refreshController.cancelPrefetch();
+    this.mIsAbsorbingFling = true;
+    if (gestureMetrics != null && !isGestureMetricsActive) {
+      beginGestureMetrics();
+    }
+    if (isGestureMetricsActive) {
+      gestureMetrics.onRecoveryStart(now);
+    }
+    frameScheduler.schedule();
+    return true;
+  }
+
   @Override
   public int getNestedScrollAxes() {
     return this.mNestedScrollingParentHelper.getNestedScrollAxes();
@@ -704,28 +1714,286 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
   /**
    * 设置可拖拽的最大距离
    *
-   * @param mTotalDragDistance {@link HeadZoomLayout#mTotalDragDistance}
+   * @param mTotalDragDistance 值越大，阻尼越大
    */
   public void setTotalDragDistance(float mTotalDragDistance) {
-    this.mTotalDragDistance = mTotalDragDistance;
+    zoomPhysics.setTotalDragDistance(mTotalDragDistance);
   }
 
   /**
    * 设置拖拽加速度变化比例
    *
-   * @param dragAccelerationRatio {@link HeadZoomLayout#dragAccelerationRatio}
+   * @param dragAccelerationRatio 值越大加速度减少越快
    */
   public void setDragAccelerationRatio(float dragAccelerationRatio) {
-    this.dragAccelerationRatio = dragAccelerationRatio;
+    zoomPhysics.setDragAccelerationRatio(dragAccelerationRatio);
   }
 
   /**
    * 设置头部最大放大比例
    *
-   * @param maxZoomRatio {@link HeadZoomLayout#maxZoomRatio}
+   * @param maxZoomRatio 头部最大放大距离与头部高度的比例
    */
   public void setMaxZoomRatio(float maxZoomRatio) {
-    this.maxZoomRatio = maxZoomRatio;
+    zoomPhysics.setMaxZoomRatio(maxZoomRatio);
+  }
+
+  public float getMaxZoomRatio() {
+    return zoomPhysics.getMaxZoomRatio();
+  }
+
+  /**
+   * 设置回弹模式
+   *
+   * @param recoverMode {@link HeadZoomLayout#RECOVER_MODE_DURATION}或{@link HeadZoomLayout#RECOVER_MODE_SPRING}
+   */
+  public void setRecoverMode(int recoverMode) {
+    recoveryEngine.setMode(recoverMode);
+  }
+
+  /**
+   * 设置弹簧刚度，仅在{@link HeadZoomLayout#RECOVER_MODE_SPRING}下生效
+   *
+   * @param stiffness 值越大回弹越快
+   */
+  public void setSpringStiffness(float stiffness) {
+    recoveryEngine.setStiffness(stiffness);
+  }
+
+  /**
+   * 设置弹簧阻尼比，仅在{@link HeadZoomLayout#RECOVER_MODE_SPRING}下生效
+   *
+   * @param dampingRatio 小于1时会越过原始尺寸并立即结束，等于1时为临界阻尼
+   */
+  public void setSpringDampingRatio(float dampingRatio) {
+    recoveryEngine.setDampingRatio(dampingRatio);
+  }
+
+  /**
+   * 设置自定义阻尼曲线，曲线只在设置时采样一次，拖拽过程中通过查表计算
+   *
+   * @param dampingCurve {@link DampingCurve}，传入null时恢复默认曲线{@link PowerDampingCurve}
+   */
+  public void setDampingCurve(DampingCurve dampingCurve) {
+    zoomPhysics.setDampingCurve(dampingCurve);
+  }
+
+  /**
+   * 获取当前使用的阻尼曲线
+   *
+   * @return {@link DampingCurve}
+   */
+  public DampingCurve getDampingCurve() {
+    return zoomPhysics.getDampingCurve();
+  }
+
+  /**
+   * 设置头部放大模式，头部需要随放大重新布局时使用{@link HeadZoomLayout#ZOOM_MODE_LAYOUT}，
+   * 否则推荐使用{@link HeadZoomLayout#ZOOM_MODE_TRANSFORM}
+   *
+   * 头部需要保持真实的边界（点击区域、无障碍）且不希望每帧重新布局整个内容时使用{@link HeadZoomLayout#ZOOM_MODE_SHIFT}
+   *
+   * @param zoomMode {@link HeadZoomLayout#ZOOM_MODE_LAYOUT}、{@link HeadZoomLayout#ZOOM_MODE_TRANSFORM}
+   * 或{@link HeadZoomLayout#ZOOM_MODE_SHIFT}
+   */
+  public void setZoomMode(int zoomMode) {
+    if (this.zoomMode == zoomMode) {
+      return;
+    }
+    //切换模式前先还原头部，防止两种放大方式叠加
+    restoreHeadView();
+    this.zoomMode = zoomMode;
+  }
+
+  /**
+   * 设置放大期间头部的绘制策略，头部结构复杂时可减少每帧的绘制开销
+   *
+   * @param layerStrategy {@link HeadZoomLayout#LAYER_STRATEGY_NONE}、{@link HeadZoomLayout#LAYER_STRATEGY_HARDWARE}
+   * 或{@link HeadZoomLayout#LAYER_STRATEGY_SNAPSHOT}
+   */
+  public void setLayerStrategy(int layerStrategy) {
+    if (layerController.getLayerStrategy() == layerStrategy) {
+      return;
+    }
+    //快照需要在头部未放大时绘制
+    restoreHeadView();
+    layerController.setLayerStrategy(layerStrategy);
+  }
+
+  /**
+   * 获取放大期间头部的绘制策略
+   *
+   * @return {@link HeadZoomLayout#setLayerStrategy(int)}
+   */
+  public int getLayerStrategy() {
+    return layerController.getLayerStrategy();
+  }
+
+  /**
+   * 设置子View是否滑动到顶部的检查器，用于自定义滚动容器，或实际滚动的View不是直接子View的场景
+   *
+   * @param scrollBoundaryChecker {@link ScrollBoundaryChecker}，传入null时根据子View类型自动创建
+   * {@link ScrollBoundaryCheckers#create(View)}
+   */
+  public void setScrollBoundaryChecker(ScrollBoundaryChecker scrollBoundaryChecker) {
+    if (this.scrollBoundaryChecker != null && !isCustomScrollBoundaryChecker) {
+      ScrollBoundaryCheckers.release(this.scrollBoundaryChecker);
+    }
+    this.scrollBoundaryChecker = scrollBoundaryChecker;
+    isCustomScrollBoundaryChecker = scrollBoundaryChecker != null;
+    if (scrollBoundaryChecker == null && childView != null) {
+      this.scrollBoundaryChecker = ScrollBoundaryCheckers.create(childView);
+    }
+  }
+
+  /**
+   * 添加随头部放大的视差层级，与头部在同一帧中更新，不会重新布局。
+   * 例如背景图随头部完全放大，中间层以0.5的比例缩放，前景文字只平移
+   *
+   * @param viewId 层级View的id，id已存在时更新比例和变换类型
+   * @param rate 相对头部放大的比例
+   * @param transform {@link HeadZoomLayout#PARALLAX_SCALE}或{@link HeadZoomLayout#PARALLAX_TRANSLATE}
+   */
+  public void addParallaxLayer(@IdRes int viewId, float rate, int transform) {
+    parallaxLayers.add(viewId, rate, transform);
+    parallaxLayers.resolve(this);
+    if (headView != null && isHeadViewReady) {
+      parallaxLayers.apply(headView, mZoomDistance,
+          (headViewHeight + mZoomDistance) / headViewHeight,
+          zoomMode == ZOOM_MODE_TRANSFORM);
+    }
+  }
+
+  /**
+   * 移除视差层级并还原该层级
+   *
+   * @param viewId 层级View的id
+   */
+  public void removeParallaxLayer(@IdRes int viewId) {
+    parallaxLayers.remove(viewId);
+  }
+
+  /**
+   * 移除并还原所有视差层级
+   */
+  public void clearParallaxLayers() {
+    parallaxLayers.clear();
+  }
+
+  /**
+   * 设置头部View的id，用于动态添加头部的场景
+   *
+   * @param headViewId 头部View的id
+   */
+  public void setHeadViewId(@IdRes int headViewId) {
+    if (this.headViewId == headViewId) {
+      return;
+    }
+    unbindHeadView();
+    this.headViewId = headViewId;
+    initHeadView();
+    blurCache.invalidate();
+  }
+
+  /**
+   * 设置头部背景图放大时的最大模糊半径，模糊在后台线程预先计算，放大时在几级模糊之间过渡
+   *
+   * @param maxBlurRadius 放大到最大时的模糊半径（像素），API 18以下或为0时不模糊
+   */
+  public void setMaxBlurRadius(float maxBlurRadius) {
+    blurCache.setMaxBlurRadius(maxBlurRadius);
+    if (renderEffects != null) {
+      renderEffects.setMaxBlurRadius(maxBlurRadius);
+    }
+    if (mZoomDistance == 0) {
+      prepareBlurCache();
+    }
+  }
+
+  public float getMaxBlurRadius() {
+    return blurCache.getMaxBlurRadius();
+  }
+
+  /**
+   * 设置需要模糊的头部背景图id，不设置时头部View本身需要是ImageView
+   *
+   * @param blurImageViewId 头部中ImageView的id
+   */
+  public void setBlurImageViewId(@IdRes int blurImageViewId) {
+    if (this.blurImageViewId == blurImageViewId) {
+      return;
+    }
+    this.blurImageViewId = blurImageViewId;
+    invalidateBlurCache();
+  }
+
+  /**
+   * 背景图内容变化但Drawable对象不变时（如修改了Bitmap的像素），手动使模糊缓存失效
+   */
+  public void invalidateBlurCache() {
+    blurCache.invalidate();
+    if (mZoomDistance == 0) {
+      prepareBlurCache();
+    }
+  }
+
+  /**
+   * 设置放大到最大时头部背景图的压暗比例，只在使用RenderEffect时生效
+   *
+   * @param maxDimAmount 0到1之间，为0时不压暗
+   */
+  public void setMaxDimAmount(float maxDimAmount) {
+    this.maxDimAmount = maxDimAmount;
+    if (renderEffects != null) {
+      renderEffects.setMaxDimAmount(maxDimAmount);
+    }
+  }
+
+  public float getMaxDimAmount() {
+    return maxDimAmount;
+  }
+
+  /**
+   * 设置是否在API 31以上使用RenderEffect完成模糊和压暗：由RenderThread在GPU上处理，
+   * 不再在后台线程预先计算模糊，放大方式不变。
+   * API 31以下仍使用原有的模糊方式
+   *
+   * @param enabled 是否开启
+   */
+  public void setRenderEffectEnabled(boolean enabled) {
+    if (isRenderEffectEnabled == enabled) {
+      return;
+    }
+    //切换前先还原头部，防止两种放大方式叠加
+    restoreHeadView();
+    isRenderEffectEnabled = enabled;
+    renderEffects = enabled && Build.VERSION.SDK_INT >= 31 ? ZoomRenderEffects.create() : null;
+    if (renderEffects != null) {
+      renderEffects.setMaxBlurRadius(blurCache.getMaxBlurRadius());
+      renderEffects.setMaxDimAmount(maxDimAmount);
+    }
+    //两种模糊只保留一种
+    invalidateBlurCache();
+  }
+
+  public boolean isRenderEffectEnabled() {
+    return isRenderEffectEnabled;
+  }
+
+  /**
+   * 当前是否正在使用RenderEffect，开启且系统版本在API 31以上时为true
+   */
+  public boolean isRenderEffectActive() {
+    return renderEffects != null;
+  }
+
+  /**
+   * 获取头部放大模式
+   *
+   * @return {@link HeadZoomLayout#zoomMode}
+   */
+  public int getZoomMode() {
+    return zoomMode;
   }
 
   /**
@@ -753,10 +2021,7 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
    */
   public void addOnHeadZoomListener(
       OnHeadZoomListener onHeadZoomListener) {
-    if (onHeadZoomListeners == null) {
-      onHeadZoomListeners = new ArrayList<>();
-    }
-    onHeadZoomListeners.add(onHeadZoomListener);
+    eventDispatcher.addOnHeadZoomListener(onHeadZoomListener);
   }
 
   /**
@@ -765,9 +2030,189 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
    * @param onHeadZoomListener {@link HeadZoomLayout.OnHeadZoomListener}
    */
   public void removeOnHeadZoomListener(OnHeadZoomListener onHeadZoomListener) {
-    if (onHeadZoomListeners != null) {
-      onHeadZoomListeners.remove(onHeadZoomListener);
+    eventDispatcher.removeOnHeadZoomListener(onHeadZoomListener);
+  }
+
+  /**
+   * 开启或关闭手势性能统计
+   *
+   * @param enabled 关闭时同时关闭调试浮层
+   */
+  public void setGestureMetricsEnabled(boolean enabled) {
+    if (enabled) {
+      if (gestureMetrics == null) {
+        gestureMetrics = new HeadZoomMetrics();
+      }
+    } else {
+      isGestureMetricsActive = false;
+      gestureMetrics = null;
+      isMetricsOverlayEnabled = false;
+    }
+  }
+
+  public boolean isGestureMetricsEnabled() {
+    return gestureMetrics != null;
+  }
+
+  /**
+   * 设置手势轨迹录制，之后收到的触摸事件和嵌套滑动回调都会写入轨迹，传入null停止录制
+   *
+   * @param recorder {@link GestureTraceRecorder}
+   */
+  public void setGestureTraceRecorder(GestureTraceRecorder recorder) {
+    if (traceRecorder != null) {
+      traceRecorder.detach(this);
+    }
+    traceRecorder = recorder;
+    if (recorder != null) {
+      recorder.attach(this);
+    }
+  }
+
+  public GestureTraceRecorder getGestureTraceRecorder() {
+    return traceRecorder;
+  }
+
+  /**
+   * 获取当前或最近一次手势的统计
+   *
+   * @return 未开启统计时返回null
+   */
+  public HeadZoomMetrics getGestureMetrics() {
+    return gestureMetrics;
+  }
+
+  /**
+   * 设置手势统计监听，每次发生过放大的手势在回弹结束后回调，设置后自动开启统计
+   *
+   * @param onGestureMetricsListener {@link HeadZoomLayout.OnGestureMetricsListener}
+   */
+  public void setOnGestureMetricsListener(OnGestureMetricsListener onGestureMetricsListener) {
+    this.onGestureMetricsListener = onGestureMetricsListener;
+    if (onGestureMetricsListener != null) {
+      setGestureMetricsEnabled(true);
+    }
+  }
+
+  /**
+   * 是否在头部上方绘制实时统计浮层，仅用于调试，开启后自动开启统计
+   */
+  public void setMetricsOverlayEnabled(boolean enabled) {
+    if (enabled) {
+      setGestureMetricsEnabled(true);
+    }
+    isMetricsOverlayEnabled = enabled;
+    invalidate();
+  }
+
+  /**
+   * 添加头部放大事件监听，在主线程回调，每帧最多回调一次
+   *
+   * @param onHeadZoomEventListener {@link HeadZoomLayout.OnHeadZoomEventListener}
+   */
+  public void addOnHeadZoomEventListener(OnHeadZoomEventListener onHeadZoomEventListener) {
+    eventDispatcher.addOnHeadZoomEventListener(onHeadZoomEventListener, null);
+  }
+
+  /**
+   * 添加头部放大事件监听，在指定的Executor中回调，上一次回调未执行时只保留最新事件。
+   * 适用于埋点统计、标题栏变色等耗时操作
+   *
+   * @param onHeadZoomEventListener {@link HeadZoomLayout.OnHeadZoomEventListener}
+   * @param executor 回调执行的线程池，为null时在主线程回调
+   */
+  public void addOnHeadZoomEventListener(OnHeadZoomEventListener onHeadZoomEventListener,
+      Executor executor) {
+    eventDispatcher.addOnHeadZoomEventListener(onHeadZoomEventListener, executor);
+  }
+
+  /**
+   * 移除已经添加的放大事件监听
+   *
+   * @param onHeadZoomEventListener {@link HeadZoomLayout.OnHeadZoomEventListener}
+   */
+  public void removeOnHeadZoomEventListener(OnHeadZoomEventListener onHeadZoomEventListener) {
+    eventDispatcher.removeOnHeadZoomEventListener(onHeadZoomEventListener);
+  }
+
+  /**
+   * 设置下拉刷新监听，放大比例越过预备阈值时在指定的Executor中回调预加载，
+   * 松手时到达触发阈值则确认刷新，头部保持在刷新高度直到调用{@link HeadZoomLayout#finishRefresh()}
+   *
+   * @param onRefreshListener {@link HeadZoomLayout.OnRefreshListener}，为null时关闭下拉刷新
+   * @param executor 预加载回调执行的线程池，为null时在主线程回调
+   */
+  public void setOnRefreshListener(OnRefreshListener onRefreshListener, Executor executor) {
+    refreshController.setOnRefreshListener(onRefreshListener, executor);
+  }
+
+  /**
+   * 设置下拉刷新的阈值
+   *
+   * @param armFraction 预备阈值，放大比例越过时开始预加载，回退到阈值以下时取消
+   * @param triggerFraction 触发阈值，松手时放大比例不小于该值则确认刷新，不能小于预备阈值
+   */
+  public void setRefreshThresholds(float armFraction, float triggerFraction) {
+    refreshController.setThresholds(armFraction, triggerFraction);
+  }
+
+  public float getRefreshArmFraction() {
+    return refreshController.getArmFraction();
+  }
+
+  public float getRefreshTriggerFraction() {
+    return refreshController.getTriggerFraction();
+  }
+
+  /**
+   * 设置刷新时头部保持的高度
+   *
+   * @param refreshingFraction 占最大放大距离的比例
+   */
+  public void setRefreshingFraction(float refreshingFraction) {
+    refreshController.setRefreshingFraction(refreshingFraction);
+  }
+
+  public float getRefreshingFraction() {
+    return refreshController.getRefreshingFraction();
+  }
+
+  public boolean isRefreshing() {
+    return refreshController.isRefreshing();
+  }
+
+  /**
+   * 加载完成后调用，头部从刷新高度回弹
+   */
+  public void finishRefresh() {
+    if (!refreshController.isRefreshing()) {
+      return;
+    }
+    refreshController.finish();
+    if (mIsBeingDragged || mNestedScrollInProgress) {
+      //松手时再回弹
+      return;
     }
+    recoveryHeadView(0);
+  }
+
+  public interface OnRefreshListener {
+    /**
+     * 放大比例越过预备阈值，在指定的Executor中回调，可以提前开始加载数据
+     *
+     * @param prefetch 本次预加载{@link RefreshPrefetch}
+     */
+    void onPrefetch(RefreshPrefetch prefetch);
+
+    /**
+     * 回退到预备阈值以下或未到达触发阈值就松手，预加载被取消，在指定的Executor中回调
+     */
+    void onPrefetchCancelled(RefreshPrefetch prefetch);
+
+    /**
+     * 松手时到达触发阈值，在主线程回调，加载完成后需要调用{@link HeadZoomLayout#finishRefresh()}
+     */
+    void onRefresh(RefreshPrefetch prefetch);
   }
 
   public interface OnHeadZoomListener {
@@ -779,4 +2224,22 @@ public class HeadZoomLayout extends ViewGroup implements NestedScrollingParent,
      */
     void onHeadZoom(boolean isRecovering, float zoomDistance);
   }
+
+  public interface OnGestureMetricsListener {
+    /**
+     * 手势统计回调
+     *
+     * @param metrics 手势统计，下一次手势开始时会被重置{@link HeadZoomMetrics}
+     */
+    void onGestureMetrics(HeadZoomMetrics metrics);
+  }
+
+  public interface OnHeadZoomEventListener {
+    /**
+     * 头部放大事件监听
+     *
+     * @param event 放大事件，只在回调期间有效{@link HeadZoomEvent}
+     */
+    void onHeadZoom(HeadZoomEvent event);
+  }
 }
@@ -0,0 +1,187 @@
+package com.hyc.headzoomlayout;
+
+/**
+ * 单次放大手势的性能统计
+ * 手势从ACTION_DOWN或嵌套滑动开始，到头部回弹结束为止，只统计发生过放大的手势。
+ * 对象会在下一次手势开始时被重置，需要保存时使用{@link HeadZoomMetrics#copy()}
+ */
+public final class HeadZoomMetrics {
+
+  private long gestureStartNanos;
+  private long gestureDurationNanos;
+  private int touchSamples;
+  private int zoomApplications;
+  private int layoutPasses;
+  private int frames;
+  private int slowFrames;
+  private long frameIntervalNanos;
+  private long frameWorkNanos;
+  private long maxFrameWorkNanos;
+  private long recoveryStartNanos;
+  private long recoveryDurationNanos;
+
+  HeadZoomMetrics() {
+  }
+
+  void reset(long nowNanos, long frameIntervalNanos) {
+    gestureStartNanos = nowNanos;
+    gestureDurationNanos = 0;
+    touchSamples = 0;
+    zoomApplications = 0;
+    layoutPasses = 0;
+    frames = 0;
+    slowFrames = 0;
+    this.frameIntervalNanos = frameIntervalNanos;
+    frameWorkNanos = 0;
+    maxFrameWorkNanos = 0;
+    recoveryStartNanos = 0;
+    recoveryDurationNanos = 0;
+  }
+
+  void onTouchSamples(int count) {
+    touchSamples += count;
+  }
+
+  void onZoomApplied() {
+    zoomApplications++;
+  }
+
+  void onLayoutPass() {
+    layoutPasses++;
+  }
+
+  /**
+   * 记录一帧
+   *
+   * @param frameTimeNanos 帧时间
+   * @param scheduleTimeNanos 请求该帧的时间，晚于请求超过一个帧间隔才执行说明至少丢了一帧
+   * @param workNanos 本帧放大头部的耗时
+   */
+  void onFrame(long frameTimeNanos, long scheduleTimeNanos, long workNanos) {
+    frames++;
+    if (frameTimeNanos - scheduleTimeNanos > frameIntervalNanos
+        || workNanos > frameIntervalNanos) {
+      slowFrames++;
+    }
+    frameWorkNanos += workNanos;
+    if (workNanos > maxFrameWorkNanos) {
+      maxFrameWorkNanos = workNanos;
+    }
+  }
+
+  void onRecoveryStart(long nowNanos) {
+    recoveryStartNanos = nowNanos;
+  }
+
+  void onGestureEnd(long nowNanos) {
+    gestureDurationNanos = nowNanos - gestureStartNanos;
+    if (recoveryStartNanos > 0) {
+      recoveryDurationNanos = nowNanos - recoveryStartNanos;
+    }
+  }
+
+  /**
+   * 复制一份可长期持有的统计
+   */
+  public HeadZoomMetrics copy() {
+    HeadZoomMetrics metrics = new HeadZoomMetrics();
+    metrics.gestureStartNanos = gestureStartNanos;
+    metrics.gestureDurationNanos = gestureDurationNanos;
+    metrics.touchSamples = touchSamples;
+    metrics.zoomApplications = zoomApplications;
+    metrics.layoutPasses = layoutPasses;
+    metrics.frames = frames;
+    metrics.slowFrames = slowFrames;
+    metrics.frameIntervalNanos = frameIntervalNanos;
+    metrics.frameWorkNanos = frameWorkNanos;
+    metrics.maxFrameWorkNanos = maxFrameWorkNanos;
+    metrics.recoveryStartNanos = recoveryStartNanos;
+    metrics.recoveryDurationNanos = recoveryDurationNanos;
+    return metrics;
+  }
+
+  /**
+   * 手势持续时间，包含回弹
+   */
+  public long getGestureDurationNanos() {
+    return gestureDurationNanos;
+  }
+
+  /**
+   * 处理的触摸采样数，包含MotionEvent中的历史采样
+   */
+  public int getTouchSamples() {
+    return touchSamples;
+  }
+
+  /**
+   * 头部放大的次数
+   */
+  public int getZoomApplications() {
+    return zoomApplications;
+  }
+
+  /**
+   * 手势期间布局的layout次数，{@link HeadZoomLayout#ZOOM_MODE_LAYOUT}下每次放大都会触发
+   */
+  public int getLayoutPasses() {
+    return layoutPasses;
+  }
+
+  /**
+   * 执行放大的帧数
+   */
+  public int getFrames() {
+    return frames;
+  }
+
+  /**
+   * 超出帧间隔的帧数
+   */
+  public int getSlowFrames() {
+    return slowFrames;
+  }
+
+  /**
+   * 屏幕帧间隔
+   */
+  public long getFrameIntervalNanos() {
+    return frameIntervalNanos;
+  }
+
+  /**
+   * 所有帧中放大头部的总耗时
+   */
+  public long getFrameWorkNanos() {
+    return frameWorkNanos;
+  }
+
+  /**
+   * 单帧放大头部的最大耗时
+   */
+  public long getMaxFrameWorkNanos() {
+    return maxFrameWorkNanos;
+  }
+
+  /**
+   * 回弹耗时，未回弹时为0
+   */
+  public long getRecoveryDurationNanos() {
+    return recoveryDurationNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "HeadZoomMetrics{gestureDurationNanos=" + gestureDurationNanos
+        + ", touchSamples=" + touchSamples
+        + ", zoomApplications=" + zoomApplications
+        + ", layoutPasses=" + layoutPasses
+        + ", frames=" + frames
+        + ", slowFrames=" + slowFrames
+        + ", frameIntervalNanos=" + frameIntervalNanos
+        + ", frameWorkNanos=" + frameWorkNanos
+        + ", maxFrameWorkNanos=" + maxFrameWorkNanos
+        + ", recoveryDurationNanos=" + recoveryDurationNanos
+        + '}';
+  }
+}
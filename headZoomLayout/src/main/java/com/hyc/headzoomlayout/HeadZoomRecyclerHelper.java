@@ -0,0 +1,571 @@
+package com.hyc.headzoomlayout;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.EdgeEffect;
+import androidx.annotation.NonNull;
+import androidx.annotation.StyleRes;
+import androidx.recyclerview.widget.RecyclerView;
+import com.hyc.headzoomlayout.core.DampingCurve;
+import com.hyc.headzoomlayout.core.ZoomPhysics;
+import com.hyc.headzoomlayout.core.ZoomRecoveryEngine;
+
+/**
+ * RecyclerView第一个item作为头部的放大，不需要包裹HeadZoomLayout
+ * 通过{@link HeadZoomRecyclerHelper#attachToRecyclerView(RecyclerView)}绑定：
+ * 顶部的越界下拉和fling到达顶部由RecyclerView的{@link RecyclerView.EdgeEffectFactory}传入，不显示边缘效果；
+ * 头部放大时向上滑动先缩小头部，剩余的距离继续滚动列表。
+ * 第一个item以顶部中点缩放，其余item同步平移，放大和回弹都不会重新布局item。
+ * 阻尼和回弹与{@link HeadZoomLayout}使用相同的属性和默认值，可通过style共用
+ */
+public class HeadZoomRecyclerHelper {
+
+  private final ZoomPhysics zoomPhysics;
+  private final ZoomRecoveryEngine recoveryEngine;
+  private final TouchHandler touchHandler = new TouchHandler();
+  private final ChildObserver childObserver = new ChildObserver();
+  private final ZoomEdgeEffectFactory edgeEffectFactory = new ZoomEdgeEffectFactory();
+  private RecyclerView recyclerView;
+  private RecyclerView.EdgeEffectFactory previousEdgeEffectFactory;
+  private ZoomFrameScheduler frameScheduler;
+  private VelocityTracker velocityTracker;
+  private int maxFlingVelocity;
+  private boolean isZoomEnabled = true;
+  private float headViewWidth;
+  private float headViewHeight;
+  private float zoomDistance = 0;
+  /**
+   * 当前手势的拖拽距离
+   */
+  private float dragDistance = 0;
+  /**
+   * 是否由helper处理当前手势（头部放大时向上滑动或按下停止回弹）
+   */
+  private boolean isBeingDragged = false;
+  private int activePointerId = HeadZoomLayout.INVALID_POINTER;
+  private float lastY;
+  private boolean hasPendingZoom = false;
+  private float pendingDragDistance;
+  private HeadZoomLayout.OnHeadZoomListener onHeadZoomListener;
+
+  public HeadZoomRecyclerHelper() {
+    zoomPhysics = ZoomAttributes.createPhysics(null);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+  }
+
+  /**
+   * 从style中读取阻尼和回弹属性，style可以同时设置给HeadZoomLayout
+   *
+   * @param styleRes 包含maxZoomRatio、maxDragDistance、dragAccelerationRatio、maxRecoverTime等属性的style
+   */
+  public HeadZoomRecyclerHelper(Context context, @StyleRes int styleRes) {
+    TypedArray typedArray = context.obtainStyledAttributes(styleRes, R.styleable.HeadZoomLayout);
+    zoomPhysics = ZoomAttributes.createPhysics(typedArray);
+    recoveryEngine = zoomPhysics.getRecoveryEngine();
+    isZoomEnabled = typedArray.getBoolean(R.styleable.HeadZoomLayout_zoomEnable, true);
+    typedArray.recycle();
+  }
+
+  /**
+   * 绑定RecyclerView，传入null时解绑并还原头部。
+   * 会替换RecyclerView的EdgeEffectFactory，解绑时恢复
+   */
+  public void attachToRecyclerView(RecyclerView recyclerView) {
+    if (this.recyclerView == recyclerView) {
+      return;
+    }
+    if (this.recyclerView != null) {
+      detach();
+    }
+    this.recyclerView = recyclerView;
+    if (recyclerView == null) {
+      return;
+    }
+    maxFlingVelocity =
+        ViewConfiguration.get(recyclerView.getContext()).getScaledMaximumFlingVelocity();
+    frameScheduler = new ZoomFrameScheduler(recyclerView, new ZoomFrameScheduler.OnFrameListener() {
+      @Override
+      public void onZoomFrame(long frameTimeNanos) {
+        HeadZoomRecyclerHelper.this.onZoomFrame(frameTimeNanos);
+      }
+    });
+    previousEdgeEffectFactory = recyclerView.getEdgeEffectFactory();
+    recyclerView.setEdgeEffectFactory(edgeEffectFactory);
+    recyclerView.addOnItemTouchListener(touchHandler);
+    recyclerView.addOnChildAttachStateChangeListener(childObserver);
+  }
+
+  private void detach() {
+    frameScheduler.cancel();
+    recoveryEngine.cancel();
+    hasPendingZoom = false;
+    isBeingDragged = false;
+    dragDistance = 0;
+    setZoomDistance(0, false);
+    recyclerView.setEdgeEffectFactory(previousEdgeEffectFactory);
+    recyclerView.removeOnItemTouchListener(touchHandler);
+    recyclerView.removeOnChildAttachStateChangeListener(childObserver);
+    if (velocityTracker != null) {
+      velocityTracker.recycle();
+      velocityTracker = null;
+    }
+    previousEdgeEffectFactory = null;
+    frameScheduler = null;
+  }
+
+  /**
+   * 顶部越界下拉，与HeadZoomLayout的触摸拖拽一样累加拖拽距离
+   *
+   * @param dy 手指向下移动的像素
+   */
+  private void onPull(float dy) {
+    if (!isZoomEnabled || isBeingDragged) {
+      return;
+    }
+    if (zoomDistance == 0 && !hasPendingZoom) {
+      if (!syncHeadViewSize()) {
+        return;
+      }
+      dragDistance = 0;
+    }
+    recoveryEngine.cancel();
+    dragDistance = zoomPhysics.accumulateDrag(dragDistance, dy);
+    requestZoom(dragDistance);
+  }
+
+  /**
+   * 松手，按手指速度开始回弹
+   */
+  private void onRelease() {
+    if (isBeingDragged || (dragDistance <= 0 && zoomDistance == 0)) {
+      return;
+    }
+    startRecovery(zoomPhysics.getZoomVelocity(computeYVelocity(), dragDistance));
+  }
+
+  /**
+   * helper拖拽的手势松手：头部仍在放大时回弹，头部已复原时列表按手指速度继续fling
+   */
+  private void onDragRelease() {
+    if (dragDistance > 0) {
+      onRelease();
+      return;
+    }
+    flushPendingZoom();
+    //拖拽期间列表由scrollBy滚动，RecyclerView自身的触摸已被取消，需要手动fling
+    recyclerView.fling(0, (int) -computeYVelocity());
+  }
+
+  private float computeYVelocity() {
+    if (velocityTracker == null) {
+      return 0;
+    }
+    velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+    return velocityTracker.getYVelocity(
+        activePointerId == HeadZoomLayout.INVALID_POINTER ? 0 : activePointerId);
+  }
+
+  /**
+   * fling到达顶部，按剩余速度放大头部后回弹
+   *
+   * @param velocity 到达顶部时的速度（像素/秒）
+   */
+  private void onAbsorb(int velocity) {
+    if (!isZoomEnabled || isBeingDragged || zoomDistance > 0 || !syncHeadViewSize()) {
+      return;
+    }
+    startRecovery(zoomPhysics.getZoomVelocity(velocity, 0));
+  }
+
+  private void startRecovery(float zoomVelocity) {
+    flushPendingZoom();
+    dragDistance = 0;
+    recoveryEngine.setTarget(0);
+    recoveryEngine.start(zoomDistance, zoomVelocity, System.nanoTime());
+    if (recoveryEngine.isRunning()) {
+      frameScheduler.schedule();
+    } else {
+      setZoomDistance(0, true);
+    }
+  }
+
+  /**
+   * 头部放大后由helper处理的手指移动，头部复原后剩余的上滑距离继续滚动列表
+   */
+  private void onDrag(MotionEvent ev) {
+    int pointerIndex = ev.findPointerIndex(activePointerId);
+    if (pointerIndex < 0) {
+      pointerIndex = 0;
+    }
+    float y = ev.getY(pointerIndex);
+    float dy = y - lastY;
+    lastY = y;
+    if (dragDistance == 0 && recyclerView.canScrollVertically(-1)) {
+      //头部已复原且列表不在顶部，由列表滚动
+      recyclerView.scrollBy(0, (int) -dy);
+      return;
+    }
+    dragDistance = zoomPhysics.accumulateDrag(dragDistance, dy);
+    if (dragDistance < 0) {
+      int scroll = (int) -dragDistance;
+      dragDistance = 0;
+      requestZoom(0);
+      recyclerView.scrollBy(0, scroll);
+      return;
+    }
+    requestZoom(dragDistance);
+  }
+
+  /**
+   * 同一帧内的多次移动只放大一次
+   */
+  private void requestZoom(float dragDistance) {
+    pendingDragDistance = dragDistance;
+    hasPendingZoom = true;
+    frameScheduler.schedule();
+  }
+
+  private void flushPendingZoom() {
+    if (hasPendingZoom) {
+      frameScheduler.cancel();
+      hasPendingZoom = false;
+      setZoomDistance(zoomPhysics.getZoomDistance(pendingDragDistance), false);
+    }
+  }
+
+  private void onZoomFrame(long frameTimeNanos) {
+    if (hasPendingZoom) {
+      hasPendingZoom = false;
+      setZoomDistance(zoomPhysics.getZoomDistance(pendingDragDistance), false);
+    }
+    if (recoveryEngine.isRunning()) {
+      setZoomDistance(recoveryEngine.step(frameTimeNanos), true);
+      if (recoveryEngine.isRunning()) {
+        frameScheduler.schedule();
+      }
+    }
+  }
+
+  /**
+   * 头部未放大时记录第一个item的尺寸
+   *
+   * @return 第一个item不可见时返回false
+   */
+  private boolean syncHeadViewSize() {
+    View headView = findHeadView();
+    if (headView == null || headView.getHeight() <= 0) {
+      return false;
+    }
+    headViewWidth = headView.getWidth();
+    headViewHeight = headView.getHeight();
+    zoomPhysics.setHeadHeight(headViewHeight);
+    return true;
+  }
+
+  private View findHeadView() {
+    if (recyclerView.getChildCount() == 0) {
+      return null;
+    }
+    View child = recyclerView.getChildAt(0);
+    return recyclerView.getChildLayoutPosition(child) == 0 ? child : null;
+  }
+
+  private void setZoomDistance(float distance, boolean isRecovering) {
+    if (distance < 0) {
+      distance = 0;
+    }
+    if (distance == zoomDistance) {
+      return;
+    }
+    zoomDistance = distance;
+    for (int i = 0; i < recyclerView.getChildCount(); i++) {
+      applyZoom(recyclerView.getChildAt(i), distance);
+    }
+    if (onHeadZoomListener != null) {
+      onHeadZoomListener.onHeadZoom(isRecovering, distance);
+    }
+  }
+
+  /**
+   * 第一个item以顶部中点缩放，其余item平移
+   */
+  private void applyZoom(View child, float distance) {
+    if (recyclerView.getChildLayoutPosition(child) == 0) {
+      float scale = headViewHeight > 0 ? (headViewHeight + distance) / headViewHeight : 1;
+      child.setPivotX(headViewWidth / 2);
+      child.setPivotY(0);
+      child.setScaleX(scale);
+      child.setScaleY(scale);
+    } else {
+      child.setTranslationY(distance);
+    }
+  }
+
+  /**
+   * 获取头部当前的放大距离
+   */
+  public float getZoomDistance() {
+    return zoomDistance;
+  }
+
+  public void setZoomEnabled(boolean zoomEnabled) {
+    isZoomEnabled = zoomEnabled;
+  }
+
+  public boolean isZoomEnabled() {
+    return isZoomEnabled;
+  }
+
+  /**
+   * 设置头部最大放大比例
+   *
+   * @param maxZoomRatio 头部最大放大距离与头部高度的比例
+   */
+  public void setMaxZoomRatio(float maxZoomRatio) {
+    zoomPhysics.setMaxZoomRatio(maxZoomRatio);
+  }
+
+  public float getMaxZoomRatio() {
+    return zoomPhysics.getMaxZoomRatio();
+  }
+
+  /**
+   * 设置可拖拽的最大距离
+   *
+   * @param totalDragDistance 值越大，阻尼越大
+   */
+  public void setTotalDragDistance(float totalDragDistance) {
+    zoomPhysics.setTotalDragDistance(totalDragDistance);
+  }
+
+  /**
+   * 设置拖拽加速度变化比例
+   *
+   * @param dragAccelerationRatio 值越大加速度减少越快
+   */
+  public void setDragAccelerationRatio(float dragAccelerationRatio) {
+    zoomPhysics.setDragAccelerationRatio(dragAccelerationRatio);
+  }
+
+  /**
+   * 设置自定义阻尼曲线
+   *
+   * @param dampingCurve {@link DampingCurve}，传入null时恢复默认曲线
+   */
+  public void setDampingCurve(DampingCurve dampingCurve) {
+    zoomPhysics.setDampingCurve(dampingCurve);
+  }
+
+  /**
+   * 设置最大回弹时间，仅在{@link HeadZoomLayout#RECOVER_MODE_DURATION}下生效
+   */
+  public void setMaxRecoverTime(long maxRecoverTime) {
+    recoveryEngine.setMaxRecoverTime(maxRecoverTime);
+  }
+
+  /**
+   * 设置回弹模式
+   *
+   * @param recoverMode {@link HeadZoomLayout#RECOVER_MODE_DURATION}或{@link HeadZoomLayout#RECOVER_MODE_SPRING}
+   */
+  public void setRecoverMode(int recoverMode) {
+    recoveryEngine.setMode(recoverMode);
+  }
+
+  /**
+   * 设置放大监听
+   *
+   * @param onHeadZoomListener {@link HeadZoomLayout.OnHeadZoomListener}
+   */
+  public void setOnHeadZoomListener(HeadZoomLayout.OnHeadZoomListener onHeadZoomListener) {
+    this.onHeadZoomListener = onHeadZoomListener;
+  }
+
+  /**
+   * 跟踪手势的速度，头部放大时接管向上的滑动
+   */
+  private class TouchHandler implements RecyclerView.OnItemTouchListener {
+
+    @Override
+    public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+      trackVelocity(e);
+      switch (e.getActionMasked()) {
+        case MotionEvent.ACTION_DOWN:
+          activePointerId = e.getPointerId(0);
+          lastY = e.getY();
+          if (zoomDistance > 0 && recoveryEngine.isRunning()) {
+            //回弹过程中按下，停止回弹并从当前放大距离继续拖拽
+            recoveryEngine.cancel();
+            dragDistance = zoomPhysics.getOverPlusDistance(zoomDistance);
+            isBeingDragged = true;
+            return true;
+          }
+          return false;
+        case MotionEvent.ACTION_MOVE: {
+          int pointerIndex = e.findPointerIndex(activePointerId);
+          float y = e.getY(pointerIndex < 0 ? 0 : pointerIndex);
+          if ((zoomDistance > 0 || hasPendingZoom) && dragDistance > 0 && y < lastY) {
+            //头部放大时向上滑动，先缩小头部；RecyclerView停止自身滚动时释放的边缘效果不回弹
+            isBeingDragged = true;
+            onDrag(e);
+            return true;
+          }
+          lastY = y;
+          return false;
+        }
+        case MotionEvent.ACTION_POINTER_DOWN:
+          activePointerId = e.getPointerId(e.getActionIndex());
+          lastY = e.getY(e.getActionIndex());
+          return false;
+        default:
+          return false;
+      }
+    }
+
+    @Override
+    public void onTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+      trackVelocity(e);
+      switch (e.getActionMasked()) {
+        case MotionEvent.ACTION_MOVE:
+          onDrag(e);
+          break;
+        case MotionEvent.ACTION_POINTER_DOWN:
+          activePointerId = e.getPointerId(e.getActionIndex());
+          lastY = e.getY(e.getActionIndex());
+          break;
+        case MotionEvent.ACTION_POINTER_UP: {
+          int actionIndex = e.getActionIndex();
+          if (e.getPointerId(actionIndex) == activePointerId) {
+            int newIndex = actionIndex == 0 ? 1 : 0;
+            activePointerId = e.getPointerId(newIndex);
+            lastY = e.getY(newIndex);
+          }
+          break;
+        }
+        case MotionEvent.ACTION_UP:
+          isBeingDragged = false;
+          onDragRelease();
+          activePointerId = HeadZoomLayout.INVALID_POINTER;
+          break;
+        case MotionEvent.ACTION_CANCEL:
+          isBeingDragged = false;
+          onRelease();
+          activePointerId = HeadZoomLayout.INVALID_POINTER;
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+    }
+
+    private void trackVelocity(MotionEvent e) {
+      if (e.getActionMasked() == MotionEvent.ACTION_DOWN) {
+        if (velocityTracker == null) {
+          velocityTracker = VelocityTracker.obtain();
+        } else {
+          velocityTracker.clear();
+        }
+      }
+      if (velocityTracker != null) {
+        velocityTracker.addMovement(e);
+      }
+    }
+  }
+
+  /**
+   * 复用的item在放大期间进入或离开列表时同步变换
+   */
+  private class ChildObserver implements RecyclerView.OnChildAttachStateChangeListener {
+
+    @Override
+    public void onChildViewAttachedToWindow(@NonNull View view) {
+      if (zoomDistance > 0) {
+        applyZoom(view, zoomDistance);
+      }
+    }
+
+    @Override
+    public void onChildViewDetachedFromWindow(@NonNull View view) {
+      if (zoomDistance > 0) {
+        //item会被复用，离开列表时还原
+        view.setScaleX(1.0f);
+        view.setScaleY(1.0f);
+        view.setTranslationY(0);
+      }
+    }
+  }
+
+  /**
+   * 顶部使用不绘制的边缘效果接收越界信号，其余方向使用默认的边缘效果
+   */
+  private class ZoomEdgeEffectFactory extends RecyclerView.EdgeEffectFactory {
+
+    @NonNull
+    @Override
+    protected EdgeEffect createEdgeEffect(@NonNull RecyclerView view, int direction) {
+      if (direction == DIRECTION_TOP) {
+        return new ZoomEdgeEffect(view);
+      }
+      return super.createEdgeEffect(view, direction);
+    }
+  }
+
+  private class ZoomEdgeEffect extends EdgeEffect {
+
+    private final RecyclerView view;
+
+    ZoomEdgeEffect(RecyclerView view) {
+      super(view.getContext());
+      this.view = view;
+    }
+
+    @Override
+    public void onPull(float deltaDistance) {
+      //deltaDistance为越界距离与列表高度的比例
+      HeadZoomRecyclerHelper.this.onPull(deltaDistance * view.getHeight());
+    }
+
+    @Override
+    public void onPull(float deltaDistance, float displacement) {
+      onPull(deltaDistance);
+    }
+
+    //API 31的拉伸效果通过onPullDistance和getDistance越界，compileSdk中没有这两个方法，不能加@Override
+    public float onPullDistance(float deltaDistance, float displacement) {
+      onPull(deltaDistance);
+      return deltaDistance;
+    }
+
+    public float getDistance() {
+      return 0;
+    }
+
+    @Override
+    public void onRelease() {
+      HeadZoomRecyclerHelper.this.onRelease();
+    }
+
+    @Override
+    public void onAbsorb(int velocity) {
+      HeadZoomRecyclerHelper.this.onAbsorb(velocity);
+    }
+
+    @Override
+    public boolean isFinished() {
+      return true;
+    }
+
+    @Override
+    public boolean draw(Canvas canvas) {
+      return false;
+    }
+  }
+}
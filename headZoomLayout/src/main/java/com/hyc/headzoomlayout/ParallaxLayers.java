@@ -0,0 +1,173 @@
+package com.hyc.headzoomlayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * 随头部放大的视差层级
+ * 每个层级按比例缩放或平移，与头部在同一帧中一起更新，只修改RenderNode属性，不会重新布局。
+ * 缩放和平移均以屏幕上的效果为准，缩放模式下位于头部内部的层级会抵消头部自身的缩放
+ */
+final class ParallaxLayers {
+
+  private static final Layer[] EMPTY = new Layer[0];
+
+  private Layer[] layers = EMPTY;
+  /**
+   * 层级在头部中的位置，避免每帧分配对象
+   */
+  private float offsetX;
+  private float offsetY;
+
+  private static final class Layer {
+    final int viewId;
+    float rate;
+    int transform;
+    View view;
+
+    Layer(int viewId) {
+      this.viewId = viewId;
+    }
+  }
+
+  /**
+   * 添加层级，id已存在时更新比例和变换类型
+   */
+  void add(int viewId, float rate, int transform) {
+    Layer layer = find(viewId);
+    if (layer == null) {
+      layer = new Layer(viewId);
+      Layer[] newLayers = new Layer[layers.length + 1];
+      System.arraycopy(layers, 0, newLayers, 0, layers.length);
+      newLayers[layers.length] = layer;
+      layers = newLayers;
+    }
+    layer.rate = rate;
+    layer.transform = transform;
+  }
+
+  void remove(int viewId) {
+    for (int i = 0; i < layers.length; i++) {
+      if (layers[i].viewId == viewId) {
+        resetLayer(layers[i]);
+        Layer[] newLayers = new Layer[layers.length - 1];
+        System.arraycopy(layers, 0, newLayers, 0, i);
+        System.arraycopy(layers, i + 1, newLayers, i, layers.length - i - 1);
+        layers = newLayers;
+        return;
+      }
+    }
+  }
+
+  void clear() {
+    release();
+    layers = EMPTY;
+  }
+
+  boolean isEmpty() {
+    return layers.length == 0;
+  }
+
+  /**
+   * 在布局阶段查找层级对应的View
+   */
+  void resolve(ViewGroup host) {
+    for (Layer layer : layers) {
+      if (layer.view == null) {
+        layer.view = host.findViewById(layer.viewId);
+      }
+    }
+  }
+
+  /**
+   * 还原所有层级并解除引用，下一次布局时重新查找
+   */
+  void release() {
+    for (Layer layer : layers) {
+      resetLayer(layer);
+      layer.view = null;
+    }
+  }
+
+  /**
+   * 按头部的放大距离更新所有层级
+   *
+   * @param headScale 头部放大后与原始高度的比例
+   * @param isTransformMode 头部是否通过缩放放大
+   */
+  void apply(View headView, float distance, float headScale, boolean isTransformMode) {
+    for (Layer layer : layers) {
+      View view = layer.view;
+      if (view == null) {
+        continue;
+      }
+      float scale = 1;
+      float translationX = 0;
+      float translationY = 0;
+      if (layer.transform == HeadZoomLayout.PARALLAX_SCALE) {
+        scale = 1 + layer.rate * (headScale - 1);
+      } else {
+        translationY = layer.rate * distance;
+      }
+      if (isTransformMode && headScale != 1 && findOffsetInHead(view, headView)) {
+        //抵消头部以顶部中点为支点的缩放，使层级的顶部中点只移动translationY
+        float inverse = 1 / headScale;
+        float anchorX = offsetX + view.getWidth() / 2f - headView.getWidth() / 2f;
+        scale *= inverse;
+        translationX = anchorX * (inverse - 1);
+        translationY = offsetY * (inverse - 1) + translationY * inverse;
+      }
+      view.setPivotX(view.getWidth() / 2f);
+      view.setPivotY(0);
+      view.setScaleX(scale);
+      view.setScaleY(scale);
+      view.setTranslationX(translationX);
+      view.setTranslationY(translationY);
+    }
+  }
+
+  private Layer find(int viewId) {
+    for (Layer layer : layers) {
+      if (layer.viewId == viewId) {
+        return layer;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 计算层级在头部中的位置
+   *
+   * @return 层级是否位于头部内部
+   */
+  private boolean findOffsetInHead(View view, View headView) {
+    float x = view.getLeft();
+    float y = view.getTop();
+    ViewParent parent = view.getParent();
+    while (parent instanceof View) {
+      View parentView = (View) parent;
+      x -= parentView.getScrollX();
+      y -= parentView.getScrollY();
+      if (parentView == headView) {
+        offsetX = x;
+        offsetY = y;
+        return true;
+      }
+      x += parentView.getLeft();
+      y += parentView.getTop();
+      parent = parentView.getParent();
+    }
+    return false;
+  }
+
+  private static void resetLayer(Layer layer) {
+    if (layer.view == null) {
+      return;
+    }
+    layer.view.setScaleX(1);
+    layer.view.setScaleY(1);
+    layer.view.setTranslationX(0);
+    layer.view.setTranslationY(0);
+  }
+}
@@ -0,0 +1,38 @@
+package com.hyc.headzoomlayout;
+
+/**
+ * 一次下拉刷新的预加载
+ * 放大比例越过预备阈值时创建，在{@link HeadZoomLayout.OnRefreshListener#onPrefetch(RefreshPrefetch)}中开始加载；
+ * 用户回退到预备阈值以下，或未到达触发阈值就松手时被取消，加载过程中可通过{@link RefreshPrefetch#isCancelled()}提前结束；
+ * 松手时到达触发阈值则确认刷新，头部保持在刷新高度直到调用{@link HeadZoomLayout#finishRefresh()}
+ */
+public final class RefreshPrefetch {
+
+  private volatile boolean isCancelled = false;
+  private volatile boolean isCommitted = false;
+
+  RefreshPrefetch() {
+  }
+
+  void cancel() {
+    isCancelled = true;
+  }
+
+  void commit() {
+    isCommitted = true;
+  }
+
+  /**
+   * 预加载是否已取消，可在任意线程调用
+   */
+  public boolean isCancelled() {
+    return isCancelled;
+  }
+
+  /**
+   * 是否已确认刷新，可在任意线程调用
+   */
+  public boolean isCommitted() {
+    return isCommitted;
+  }
+}
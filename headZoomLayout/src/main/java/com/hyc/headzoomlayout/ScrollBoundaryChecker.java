@@ -0,0 +1,17 @@
+package com.hyc.headzoomlayout;
+
+/**
+ * 判断滚动容器是否已经滑动到顶部
+ * 每个触摸事件和嵌套滑动都会调用多次，实现需要尽量轻量，能监听滑动事件的容器应当缓存结果。
+ * 内置实现见{@link ScrollBoundaryCheckers#create(android.view.View)}，
+ * 自定义容器可通过{@link HeadZoomLayout#setScrollBoundaryChecker(ScrollBoundaryChecker)}设置
+ */
+public interface ScrollBoundaryChecker {
+
+  /**
+   * 是否已经滑动到顶部
+   *
+   * @return 为true时下拉会放大头部
+   */
+  boolean isScrollToTop();
+}
@@ -0,0 +1,142 @@
+package com.hyc.headzoomlayout;
+
+import android.view.View;
+import android.webkit.WebView;
+import android.widget.AbsListView;
+import android.widget.ScrollView;
+import androidx.core.view.ViewCompat;
+import androidx.core.widget.NestedScrollView;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 内置的{@link ScrollBoundaryChecker}
+ * RecyclerView：监听滑动事件缓存是否到达顶部，不在触摸事件中询问LayoutManager；
+ * AbsListView：根据第一个可见条目判断；
+ * ScrollView、NestedScrollView、WebView：根据scrollY判断；
+ * 其他View：{@link ViewCompat#canScrollVertically(View, int)}
+ * RecyclerView为可选依赖，未引入时不会加载相关的类
+ */
+public final class ScrollBoundaryCheckers {
+
+  private static final boolean HAS_RECYCLER_VIEW = hasClass(
+      "androidx.recyclerview.widget.RecyclerView");
+
+  private ScrollBoundaryCheckers() {
+  }
+
+  /**
+   * 根据滚动容器的类型创建检查器
+   *
+   * @param scrollView 滚动容器，可以是HeadZoomLayout子View中的任意View
+   */
+  public static ScrollBoundaryChecker create(View scrollView) {
+    if (HAS_RECYCLER_VIEW && RecyclerViewChecker.isRecyclerView(scrollView)) {
+      return new RecyclerViewChecker(scrollView);
+    }
+    if (scrollView instanceof AbsListView) {
+      return new AbsListViewChecker((AbsListView) scrollView);
+    }
+    if (scrollView instanceof ScrollView
+        || scrollView instanceof NestedScrollView
+        || scrollView instanceof WebView) {
+      return new ScrollYChecker(scrollView);
+    }
+    return new DefaultChecker(scrollView);
+  }
+
+  /**
+   * 释放检查器注册的监听
+   */
+  static void release(ScrollBoundaryChecker checker) {
+    if (HAS_RECYCLER_VIEW && checker instanceof RecyclerViewChecker) {
+      ((RecyclerViewChecker) checker).release();
+    }
+  }
+
+  private static boolean hasClass(String className) {
+    try {
+      Class.forName(className, false, ScrollBoundaryCheckers.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static final class RecyclerViewChecker extends RecyclerView.OnScrollListener
+      implements ScrollBoundaryChecker {
+
+    private final RecyclerView recyclerView;
+    private boolean isScrollToTop;
+
+    RecyclerViewChecker(View scrollView) {
+      recyclerView = (RecyclerView) scrollView;
+      isScrollToTop = !recyclerView.canScrollVertically(-1);
+      recyclerView.addOnScrollListener(this);
+    }
+
+    static boolean isRecyclerView(View view) {
+      return view instanceof RecyclerView;
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+      //向下滑动内容后一定不在顶部，其他情况（包括布局变化时的onScrolled(0, 0)）重新计算
+      isScrollToTop = dy <= 0 && !recyclerView.canScrollVertically(-1);
+    }
+
+    @Override
+    public boolean isScrollToTop() {
+      return isScrollToTop;
+    }
+
+    void release() {
+      recyclerView.removeOnScrollListener(this);
+    }
+  }
+
+  private static final class AbsListViewChecker implements ScrollBoundaryChecker {
+
+    private final AbsListView listView;
+
+    AbsListViewChecker(AbsListView listView) {
+      this.listView = listView;
+    }
+
+    @Override
+    public boolean isScrollToTop() {
+      if (listView.getChildCount() == 0) {
+        return true;
+      }
+      return listView.getFirstVisiblePosition() == 0
+          && listView.getChildAt(0).getTop() >= listView.getListPaddingTop();
+    }
+  }
+
+  private static final class ScrollYChecker implements ScrollBoundaryChecker {
+
+    private final View scrollView;
+
+    ScrollYChecker(View scrollView) {
+      this.scrollView = scrollView;
+    }
+
+    @Override
+    public boolean isScrollToTop() {
+      return scrollView.getScrollY() <= 0;
+    }
+  }
+
+  private static final class DefaultChecker implements ScrollBoundaryChecker {
+
+    private final View view;
+
+    DefaultChecker(View view) {
+      this.view = view;
+    }
+
+    @Override
+    public boolean isScrollToTop() {
+      return !ViewCompat.canScrollVertically(view, -1);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.hyc.headzoomlayout;
+
+import android.content.res.TypedArray;
+import com.hyc.headzoomlayout.core.ZoomPhysics;
+import com.hyc.headzoomlayout.core.ZoomRecoveryEngine;
+
+/**
+ * 阻尼和回弹属性的读取
+ * {@link HeadZoomLayout}、{@link HeadZoomBehavior}和{@link HeadZoomRecyclerHelper}使用相同的属性和默认值，
+ * 保证几种用法的手感一致
+ */
+final class ZoomAttributes {
+
+  private ZoomAttributes() {
+  }
+
+  /**
+   * 按maxDragDistance、maxZoomRatio、dragAccelerationRatio创建物理模型，并初始化回弹属性
+   *
+   * @param typedArray {@link R.styleable#HeadZoomLayout}，为null时使用默认值
+   */
+  static ZoomPhysics createPhysics(TypedArray typedArray) {
+    ZoomPhysics zoomPhysics = new ZoomPhysics(
+        getFloat(typedArray, R.styleable.HeadZoomLayout_maxDragDistance, 1000f),
+        getFloat(typedArray, R.styleable.HeadZoomLayout_maxZoomRatio, 1.0f),
+        getFloat(typedArray, R.styleable.HeadZoomLayout_dragAccelerationRatio, 3.0f));
+    ZoomRecoveryEngine recoveryEngine = zoomPhysics.getRecoveryEngine();
+    recoveryEngine.setMaxRecoverTime(typedArray == null ? 400
+        : typedArray.getInt(R.styleable.HeadZoomLayout_maxRecoverTime, 400));
+    boolean useDecelerateInterpolator = typedArray == null || typedArray.getBoolean(
+        R.styleable.HeadZoomLayout_useDecelerateInterpolator, true);
+    recoveryEngine.setDecelerateFactor(useDecelerateInterpolator ? 1.2f : 0);
+    recoveryEngine.setMode(typedArray == null ? HeadZoomLayout.RECOVER_MODE_DURATION
+        : typedArray.getInt(R.styleable.HeadZoomLayout_recoverMode,
+            HeadZoomLayout.RECOVER_MODE_DURATION));
+    recoveryEngine.setStiffness(
+        getFloat(typedArray, R.styleable.HeadZoomLayout_springStiffness, 200f));
+    recoveryEngine.setDampingRatio(
+        getFloat(typedArray, R.styleable.HeadZoomLayout_springDampingRatio, 1.0f));
+    return zoomPhysics;
+  }
+
+  private static float getFloat(TypedArray typedArray, int index, float defValue) {
+    return typedArray == null ? defValue : typedArray.getFloat(index, defValue);
+  }
+}
@@ -0,0 +1,267 @@
+package com.hyc.headzoomlayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import com.hyc.headzoomlayout.core.BoxBlur;
+
+/**
+ * 头部背景图的模糊缓存
+ * 在头部未放大时将背景图降采样绘制一次，在后台线程计算若干级模糊，
+ * 放大时按放大比例在相邻两级之间交叉淡入，不在主线程做任何模糊计算。
+ * 模糊作为背景图Overlay中的Drawable绘制，只覆盖背景图本身，不会盖住头部中位于背景图之上的内容，
+ * ViewOverlay需要API 18以上，更低的版本不模糊。
+ * 背景图的Drawable或尺寸变化时缓存失效，下一次准备时重新计算
+ */
+final class ZoomBlurCache {
+
+  private static final int LEVEL_COUNT = 3;
+  private static final int DOWNSAMPLE = 4;
+
+  private final ViewGroup host;
+  private float maxBlurRadius;
+  private Bitmap[] levels;
+  /**
+   * 每次重新计算加一，用于丢弃过期的计算结果
+   */
+  private int generation;
+  private ImageView sourceView;
+  /**
+   * Overlay中添加了模糊的背景图
+   */
+  private ImageView overlayView;
+  private Drawable sourceDrawable;
+  private int sourceWidth;
+  private int sourceHeight;
+  private final BlurDrawable blurDrawable = new BlurDrawable();
+  private float zoomFraction;
+  private float zoomScale = 1;
+  private boolean isTransformMode;
+
+  ZoomBlurCache(ViewGroup host) {
+    this.host = host;
+  }
+
+  void setMaxBlurRadius(float maxBlurRadius) {
+    if (this.maxBlurRadius != maxBlurRadius) {
+      this.maxBlurRadius = maxBlurRadius;
+      invalidate();
+    }
+  }
+
+  float getMaxBlurRadius() {
+    return maxBlurRadius;
+  }
+
+  boolean isEnabled() {
+    return maxBlurRadius > 0 && Build.VERSION.SDK_INT >= 18;
+  }
+
+  boolean isReady() {
+    return levels != null;
+  }
+
+  /**
+   * 背景图或尺寸变化时重新计算模糊，必须在头部未放大时调用
+   *
+   * @param imageView 头部背景图，为null时清空缓存
+   */
+  void prepare(ImageView imageView) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (imageView == null) {
+      invalidate();
+      return;
+    }
+    int width = imageView.getWidth();
+    int height = imageView.getHeight();
+    Drawable drawable = imageView.getDrawable();
+    if (imageView == sourceView && drawable == sourceDrawable
+        && width == sourceWidth && height == sourceHeight) {
+      return;
+    }
+    invalidate();
+    sourceView = imageView;
+    sourceDrawable = drawable;
+    sourceWidth = width;
+    sourceHeight = height;
+    int levelWidth = width / DOWNSAMPLE;
+    int levelHeight = height / DOWNSAMPLE;
+    if (drawable == null || levelWidth <= 0 || levelHeight <= 0) {
+      return;
+    }
+    final Bitmap source;
+    try {
+      source = Bitmap.createBitmap(levelWidth, levelHeight, Bitmap.Config.ARGB_8888);
+    } catch (OutOfMemoryError e) {
+      //内存不足时不模糊
+      return;
+    }
+    Canvas canvas = new Canvas(source);
+    canvas.scale((float) levelWidth / width, (float) levelHeight / height);
+    canvas.translate(-imageView.getScrollX(), -imageView.getScrollY());
+    imageView.draw(canvas);
+    final int buildGeneration = generation;
+    final float levelRadius = maxBlurRadius / DOWNSAMPLE;
+    ZoomExecutors.background().execute(new Runnable() {
+      @Override
+      public void run() {
+        final Bitmap[] result = buildLevels(source, levelRadius);
+        host.post(new Runnable() {
+          @Override
+          public void run() {
+            onLevelsBuilt(buildGeneration, result);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * 使缓存失效，正在计算的结果也会被丢弃
+   */
+  void invalidate() {
+    generation++;
+    sourceView = null;
+    sourceDrawable = null;
+    sourceWidth = 0;
+    sourceHeight = 0;
+    if (levels != null) {
+      //绘制中的显示列表可能仍引用旧的Bitmap，不主动recycle
+      levels = null;
+      detachDrawable();
+    }
+  }
+
+  /**
+   * 按放大比例更新模糊，在背景图自身的绘制中生效
+   *
+   * @param fraction 放大比例，取值[0,1]
+   * @param scale 头部的缩放比例
+   * @param isTransformMode 头部是否通过缩放放大，缩放时背景图已随头部缩放
+   */
+  void update(float fraction, float scale, boolean isTransformMode) {
+    if (overlayView == null) {
+      return;
+    }
+    zoomFraction = fraction;
+    zoomScale = scale;
+    this.isTransformMode = isTransformMode;
+    //边界只用于局部刷新，绘制时使用背景图当前的尺寸
+    blurDrawable.setBounds(0, 0, overlayView.getWidth(), overlayView.getHeight());
+    blurDrawable.invalidateSelf();
+  }
+
+  private void onLevelsBuilt(int buildGeneration, Bitmap[] result) {
+    if (buildGeneration != generation || result == null || Build.VERSION.SDK_INT < 18) {
+      return;
+    }
+    levels = result;
+    overlayView = sourceView;
+    blurDrawable.setBounds(0, 0, overlayView.getWidth(), overlayView.getHeight());
+    overlayView.getOverlay().add(blurDrawable);
+  }
+
+  private void detachDrawable() {
+    if (overlayView != null && Build.VERSION.SDK_INT >= 18) {
+      overlayView.getOverlay().remove(blurDrawable);
+      overlayView = null;
+    }
+  }
+
+  /**
+   * 后台线程中计算各级模糊，模糊半径逐级递增
+   */
+  private static Bitmap[] buildLevels(Bitmap source, float maxRadius) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int[] pixels = new int[width * height];
+    int[] blurred = new int[pixels.length];
+    source.getPixels(pixels, 0, width, 0, 0, width, height);
+    Bitmap[] result = new Bitmap[LEVEL_COUNT];
+    try {
+      for (int i = 0; i < LEVEL_COUNT; i++) {
+        System.arraycopy(pixels, 0, blurred, 0, pixels.length);
+        int radius = Math.max(1, Math.round(maxRadius * (i + 1) / LEVEL_COUNT));
+        BoxBlur.blur(blurred, width, height, radius);
+        result[i] = Bitmap.createBitmap(blurred, width, height, Bitmap.Config.ARGB_8888);
+      }
+    } catch (OutOfMemoryError e) {
+      //内存不足时不模糊
+      return null;
+    }
+    return result;
+  }
+
+  /**
+   * 添加到背景图Overlay中的模糊，坐标相对于背景图
+   */
+  private final class BlurDrawable extends Drawable {
+
+    private final Paint levelPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF levelRect = new RectF();
+    private int alpha = 255;
+
+    @Override
+    public void draw(Canvas canvas) {
+      if (levels == null || overlayView == null || zoomFraction <= 0) {
+        return;
+      }
+      //使用背景图当前的尺寸，布局模式下背景图随放大重新布局
+      int width = overlayView.getWidth();
+      int height = overlayView.getHeight();
+      int saveCount = canvas.save();
+      canvas.clipRect(0, 0, width, height);
+      if (isTransformMode) {
+        levelRect.set(0, 0, width, height);
+      } else {
+        //背景图centerCrop放大，模糊按原始尺寸以顶部中点缩放
+        canvas.scale(zoomScale, zoomScale, width / 2f, 0);
+        levelRect.set(0, 0, width, sourceHeight);
+      }
+      float position = Math.min(zoomFraction, 1f) * levels.length;
+      int level = (int) position;
+      if (level > 0) {
+        //低一级完全不透明，与背景图的交叉淡入已经完成
+        drawLevel(canvas, levels[level - 1], alpha);
+      }
+      if (level < levels.length) {
+        drawLevel(canvas, levels[level], (int) ((position - level) * alpha));
+      }
+      canvas.restoreToCount(saveCount);
+    }
+
+    private void drawLevel(Canvas canvas, Bitmap level, int levelAlpha) {
+      if (levelAlpha <= 0) {
+        return;
+      }
+      levelPaint.setAlpha(levelAlpha);
+      canvas.drawBitmap(level, null, levelRect, levelPaint);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+      this.alpha = alpha;
+      invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+      levelPaint.setColorFilter(colorFilter);
+      invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+      return PixelFormat.TRANSLUCENT;
+    }
+  }
+}
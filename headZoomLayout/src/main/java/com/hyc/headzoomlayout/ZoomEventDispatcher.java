@@ -0,0 +1,182 @@
+package com.hyc.headzoomlayout;
+
+import com.hyc.headzoomlayout.HeadZoomLayout.OnHeadZoomEventListener;
+import com.hyc.headzoomlayout.HeadZoomLayout.OnHeadZoomListener;
+import java.util.concurrent.Executor;
+
+/**
+ * 头部放大事件分发
+ * 监听使用写时复制的数组保存，分发时遍历快照，不分配对象，允许在回调中添加或移除监听；
+ * {@link ZoomEventDispatcher#post(int, float, float)}只记录最新状态，
+ * 由帧调度器每帧调用一次{@link ZoomEventDispatcher#deliver(long)}，保证每帧最多分发一次；
+ * 指定Executor的监听只保留最新事件，上一次回调未执行时不会重复提交任务。
+ */
+final class ZoomEventDispatcher {
+
+  private static final OnHeadZoomListener[] EMPTY_LISTENERS = new OnHeadZoomListener[0];
+  private static final EventTarget[] EMPTY_TARGETS = new EventTarget[0];
+
+  private OnHeadZoomListener[] zoomListeners = EMPTY_LISTENERS;
+  private EventTarget[] eventTargets = EMPTY_TARGETS;
+  private final HeadZoomEvent event = new HeadZoomEvent();
+  private boolean hasPendingEvent = false;
+  private int pendingPhase = HeadZoomEvent.PHASE_IDLE;
+  private float pendingZoomDistance;
+  private float pendingZoomFraction;
+  private int lastPhase = HeadZoomEvent.PHASE_IDLE;
+
+  void addOnHeadZoomListener(OnHeadZoomListener listener) {
+    if (listener == null) {
+      return;
+    }
+    OnHeadZoomListener[] listeners = new OnHeadZoomListener[zoomListeners.length + 1];
+    System.arraycopy(zoomListeners, 0, listeners, 0, zoomListeners.length);
+    listeners[zoomListeners.length] = listener;
+    zoomListeners = listeners;
+  }
+
+  void removeOnHeadZoomListener(OnHeadZoomListener listener) {
+    for (int i = 0; i < zoomListeners.length; i++) {
+      if (zoomListeners[i] == listener) {
+        OnHeadZoomListener[] listeners = new OnHeadZoomListener[zoomListeners.length - 1];
+        System.arraycopy(zoomListeners, 0, listeners, 0, i);
+        System.arraycopy(zoomListeners, i + 1, listeners, i, listeners.length - i);
+        zoomListeners = listeners;
+        return;
+      }
+    }
+  }
+
+  void addOnHeadZoomEventListener(OnHeadZoomEventListener listener, Executor executor) {
+    if (listener == null) {
+      return;
+    }
+    EventTarget[] targets = new EventTarget[eventTargets.length + 1];
+    System.arraycopy(eventTargets, 0, targets, 0, eventTargets.length);
+    targets[eventTargets.length] = executor == null
+        ? new EventTarget(listener) : new ExecutorEventTarget(listener, executor);
+    eventTargets = targets;
+  }
+
+  void removeOnHeadZoomEventListener(OnHeadZoomEventListener listener) {
+    for (int i = 0; i < eventTargets.length; i++) {
+      if (eventTargets[i].listener == listener) {
+        eventTargets[i].isRemoved = true;
+        EventTarget[] targets = new EventTarget[eventTargets.length - 1];
+        System.arraycopy(eventTargets, 0, targets, 0, i);
+        System.arraycopy(eventTargets, i + 1, targets, i, targets.length - i);
+        eventTargets = targets;
+        return;
+      }
+    }
+  }
+
+  boolean hasListeners() {
+    return zoomListeners.length > 0 || eventTargets.length > 0;
+  }
+
+  boolean hasPendingEvent() {
+    return hasPendingEvent;
+  }
+
+  int getLastPhase() {
+    return hasPendingEvent ? pendingPhase : lastPhase;
+  }
+
+  /**
+   * 记录最新的放大状态，等待下一帧分发
+   */
+  void post(int phase, float zoomDistance, float zoomFraction) {
+    pendingPhase = phase;
+    pendingZoomDistance = zoomDistance;
+    pendingZoomFraction = zoomFraction;
+    hasPendingEvent = true;
+  }
+
+  /**
+   * 分发本帧最新的事件
+   */
+  void deliver(long frameTimeNanos) {
+    if (!hasPendingEvent) {
+      return;
+    }
+    hasPendingEvent = false;
+    lastPhase = pendingPhase;
+    event.set(pendingPhase, pendingZoomDistance, pendingZoomFraction, frameTimeNanos);
+    OnHeadZoomListener[] listeners = zoomListeners;
+    if (listeners.length > 0) {
+      boolean isRecovering = pendingPhase != HeadZoomEvent.PHASE_DRAGGING
+          && pendingPhase != HeadZoomEvent.PHASE_NESTED;
+      for (OnHeadZoomListener listener : listeners) {
+        listener.onHeadZoom(isRecovering, pendingZoomDistance);
+      }
+    }
+    EventTarget[] targets = eventTargets;
+    for (EventTarget target : targets) {
+      target.deliver(event);
+    }
+  }
+
+  /**
+   * 在主线程同步回调的监听
+   */
+  private static class EventTarget {
+
+    final OnHeadZoomEventListener listener;
+    volatile boolean isRemoved = false;
+
+    EventTarget(OnHeadZoomEventListener listener) {
+      this.listener = listener;
+    }
+
+    void deliver(HeadZoomEvent event) {
+      listener.onHeadZoom(event);
+    }
+  }
+
+  /**
+   * 在指定Executor中回调的监听，只保留最新事件
+   */
+  private static final class ExecutorEventTarget extends EventTarget implements Runnable {
+
+    private final Executor executor;
+    private final HeadZoomEvent pendingEvent = new HeadZoomEvent();
+    private final HeadZoomEvent deliveringEvent = new HeadZoomEvent();
+    private boolean hasPendingEvent = false;
+    private boolean isQueued = false;
+
+    ExecutorEventTarget(OnHeadZoomEventListener listener, Executor executor) {
+      super(listener);
+      this.executor = executor;
+    }
+
+    @Override
+    void deliver(HeadZoomEvent event) {
+      synchronized (this) {
+        pendingEvent.set(event);
+        hasPendingEvent = true;
+        if (isQueued) {
+          return;
+        }
+        isQueued = true;
+      }
+      executor.execute(this);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        synchronized (this) {
+          if (!hasPendingEvent || isRemoved) {
+            hasPendingEvent = false;
+            isQueued = false;
+            return;
+          }
+          deliveringEvent.set(pendingEvent);
+          hasPendingEvent = false;
+        }
+        listener.onHeadZoom(deliveringEvent);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.hyc.headzoomlayout;
+
+import android.os.Process;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 库内部共用的后台线程池，用于模糊计算和图片解码
+ * 不占用应用的AsyncTask线程池，空闲一段时间后线程自动退出
+ */
+final class ZoomExecutors {
+
+  private static final int THREAD_COUNT = 2;
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
+  private ZoomExecutors() {
+  }
+
+  static Executor background() {
+    return BackgroundHolder.EXECUTOR;
+  }
+
+  /**
+   * 第一次使用时才创建线程池
+   */
+  private static final class BackgroundHolder {
+
+    static final Executor EXECUTOR = createBackgroundExecutor();
+
+    private static Executor createBackgroundExecutor() {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+          KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+          new BackgroundThreadFactory());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  private static final class BackgroundThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          //低于界面线程的优先级，不与绘制争抢CPU
+          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+          runnable.run();
+        }
+      }, "HeadZoom-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
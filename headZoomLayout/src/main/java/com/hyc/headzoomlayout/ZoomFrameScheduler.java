@@ -0,0 +1,120 @@
+package com.hyc.headzoomlayout;
+
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.View;
+import androidx.annotation.RequiresApi;
+import androidx.core.view.ViewCompat;
+
+/**
+ * 按垂直同步信号合并头部放大的帧调度器
+ * 同一帧内多次调用{@link ZoomFrameScheduler#schedule()}只会在下一个vsync回调一次，
+ * API 16以下没有Choreographer，退化为{@link ViewCompat#postOnAnimation(View, Runnable)}，
+ * Choreographer只在{@link FrameCallback}中引用，API 14、15加载调度器时不会解析该类
+ */
+final class ZoomFrameScheduler implements Runnable {
+
+  interface OnFrameListener {
+    /**
+     * 每帧最多回调一次
+     *
+     * @param frameTimeNanos 帧开始时间
+     */
+    void onZoomFrame(long frameTimeNanos);
+  }
+
+  private final View view;
+  private final OnFrameListener onFrameListener;
+  private boolean isScheduled = false;
+  private long scheduleTimeNanos;
+  /**
+   * API 16以上第一次调度时创建
+   */
+  private FrameCallback frameCallback;
+
+  ZoomFrameScheduler(View view, OnFrameListener onFrameListener) {
+    this.view = view;
+    this.onFrameListener = onFrameListener;
+  }
+
+  /**
+   * 请求在下一帧回调
+   */
+  void schedule() {
+    if (isScheduled) {
+      return;
+    }
+    isScheduled = true;
+    scheduleTimeNanos = System.nanoTime();
+    if (Build.VERSION.SDK_INT >= 16) {
+      if (frameCallback == null) {
+        frameCallback = new FrameCallback(this);
+      }
+      frameCallback.post();
+    } else {
+      ViewCompat.postOnAnimation(view, this);
+    }
+  }
+
+  /**
+   * 取消尚未执行的回调
+   */
+  void cancel() {
+    if (!isScheduled) {
+      return;
+    }
+    isScheduled = false;
+    if (frameCallback != null) {
+      frameCallback.remove();
+    } else {
+      view.removeCallbacks(this);
+    }
+  }
+
+  boolean isScheduled() {
+    return isScheduled;
+  }
+
+  /**
+   * 获取最近一次请求回调的时间
+   */
+  long getScheduleTimeNanos() {
+    return scheduleTimeNanos;
+  }
+
+  private void dispatchFrame(long frameTimeNanos) {
+    if (!isScheduled) {
+      return;
+    }
+    isScheduled = false;
+    onFrameListener.onZoomFrame(frameTimeNanos);
+  }
+
+  @Override
+  public void run() {
+    dispatchFrame(System.nanoTime());
+  }
+
+  @RequiresApi(16)
+  private static final class FrameCallback implements Choreographer.FrameCallback {
+
+    private final ZoomFrameScheduler scheduler;
+
+    FrameCallback(ZoomFrameScheduler scheduler) {
+      this.scheduler = scheduler;
+    }
+
+    void post() {
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void remove() {
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      scheduler.dispatchFrame(frameTimeNanos);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.hyc.headzoomlayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 头部放大期间的绘制策略，放大开始时生效，回弹结束后恢复正常绘制
+ * 硬件层：将头部提升为硬件层，缩放时只合成纹理，不重新绘制头部子View
+ * 快照：放大开始时录制头部并隐藏头部，由布局按放大比例绘制快照。
+ * 开启硬件加速的API 23以上录制到Picture，可以包含硬件位图（Glide、Coil在API 26以上的默认配置）；
+ * 其他情况绘制到复用的Bitmap中，头部尺寸不变时不会重新创建Bitmap。
+ * 快照失败（内存不足，或软件Canvas无法绘制硬件位图）时退化为硬件层
+ */
+final class ZoomLayerController {
+
+  private final ViewGroup host;
+  private int layerStrategy = HeadZoomLayout.LAYER_STRATEGY_NONE;
+  private View target;
+  private boolean isActive = false;
+  private boolean isDrawingSnapshot = false;
+  private int savedLayerType;
+  private int savedVisibility;
+  private Bitmap snapshot;
+  private Canvas snapshotCanvas;
+  private Picture snapshotPicture;
+  private int snapshotWidth;
+  private final Paint snapshotPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Rect targetRect = new Rect();
+
+  ZoomLayerController(ViewGroup host) {
+    this.host = host;
+  }
+
+  /**
+   * 切换策略前需要先调用{@link ZoomLayerController#end()}
+   */
+  void setLayerStrategy(int layerStrategy) {
+    this.layerStrategy = layerStrategy;
+    if (layerStrategy != HeadZoomLayout.LAYER_STRATEGY_SNAPSHOT) {
+      releaseSnapshot();
+    }
+  }
+
+  int getLayerStrategy() {
+    return layerStrategy;
+  }
+
+  boolean isDrawingSnapshot() {
+    return isDrawingSnapshot;
+  }
+
+  /**
+   * 放大开始时调用，已生效时直接返回
+   *
+   * @param allowSnapshot 为false时快照策略也使用硬件层
+   */
+  void begin(View headView, boolean allowSnapshot) {
+    if (isActive || layerStrategy == HeadZoomLayout.LAYER_STRATEGY_NONE) {
+      return;
+    }
+    if (layerStrategy == HeadZoomLayout.LAYER_STRATEGY_SNAPSHOT && allowSnapshot
+        && captureSnapshot(headView)) {
+      savedVisibility = headView.getVisibility();
+      //INVISIBLE不会触发重新布局
+      headView.setVisibility(View.INVISIBLE);
+      isDrawingSnapshot = true;
+      host.invalidate();
+    } else {
+      //未开启硬件加速时软件层的开销比直接绘制更大
+      if (!headView.isHardwareAccelerated()) {
+        return;
+      }
+      savedLayerType = headView.getLayerType();
+      headView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+    }
+    target = headView;
+    isActive = true;
+  }
+
+  /**
+   * 放大结束时调用，恢复头部的正常绘制
+   */
+  void end() {
+    if (!isActive) {
+      return;
+    }
+    isActive = false;
+    if (isDrawingSnapshot) {
+      isDrawingSnapshot = false;
+      target.setVisibility(savedVisibility);
+      host.invalidate();
+    } else {
+      target.setLayerType(savedLayerType, null);
+    }
+    target = null;
+  }
+
+  /**
+   * 结束并释放快照，在布局移除时调用
+   */
+  void release() {
+    end();
+    releaseSnapshot();
+  }
+
+  /**
+   * 将快照绘制到头部的位置
+   *
+   * @param scale 以头部顶部中点为支点的缩放比例
+   * @param clipToBounds 是否裁剪到头部当前的边界
+   */
+  void drawSnapshot(Canvas canvas, float scale, boolean clipToBounds) {
+    targetRect.set(0, 0, target.getWidth(), target.getHeight());
+    host.offsetDescendantRectToMyCoords(target, targetRect);
+    if (snapshotPicture != null && !canvas.isHardwareAccelerated()
+        && Build.VERSION.SDK_INT >= 28 && snapshotPicture.requiresHardwareAcceleration()) {
+      //布局被绘制到软件Canvas（如截图）时无法绘制包含硬件位图的快照
+      return;
+    }
+    int saveCount = canvas.save();
+    if (clipToBounds) {
+      canvas.clipRect(targetRect);
+    }
+    float halfWidth = snapshotWidth / 2f;
+    canvas.translate(targetRect.left + halfWidth, targetRect.top);
+    canvas.scale(scale, scale);
+    canvas.translate(-halfWidth, 0);
+    if (snapshotPicture != null) {
+      canvas.drawPicture(snapshotPicture);
+    } else {
+      canvas.drawBitmap(snapshot, 0, 0, snapshotPaint);
+    }
+    canvas.restoreToCount(saveCount);
+  }
+
+  /**
+   * 录制头部快照
+   *
+   * @return 头部尚未布局、内存不足或头部包含软件Canvas无法绘制的内容时返回false
+   */
+  private boolean captureSnapshot(View headView) {
+    int width = headView.getWidth();
+    int height = headView.getHeight();
+    if (width <= 0 || height <= 0) {
+      return false;
+    }
+    snapshotWidth = width;
+    if (Build.VERSION.SDK_INT >= 23 && headView.isHardwareAccelerated()) {
+      return recordPicture(headView, width, height);
+    }
+    return drawBitmap(headView, width, height);
+  }
+
+  /**
+   * 录制到Picture，由硬件加速的Canvas回放，不需要额外的Bitmap内存
+   */
+  private boolean recordPicture(View headView, int width, int height) {
+    releaseSnapshot();
+    Picture picture = new Picture();
+    Canvas canvas = picture.beginRecording(width, height);
+    try {
+      canvas.translate(-headView.getScrollX(), -headView.getScrollY());
+      headView.draw(canvas);
+    } catch (RuntimeException e) {
+      //API 28以下的Picture不支持硬件位图
+      return false;
+    } finally {
+      picture.endRecording();
+    }
+    snapshotPicture = picture;
+    return true;
+  }
+
+  /**
+   * 绘制到Bitmap，尺寸不变时复用上一次的Bitmap
+   */
+  private boolean drawBitmap(View headView, int width, int height) {
+    snapshotPicture = null;
+    if (snapshot == null || snapshot.getWidth() != width || snapshot.getHeight() != height) {
+      releaseSnapshot();
+      try {
+        snapshot = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      } catch (OutOfMemoryError e) {
+        return false;
+      }
+      snapshotCanvas = new Canvas(snapshot);
+    } else {
+      snapshot.eraseColor(Color.TRANSPARENT);
+    }
+    int saveCount = snapshotCanvas.save();
+    try {
+      snapshotCanvas.translate(-headView.getScrollX(), -headView.getScrollY());
+      headView.draw(snapshotCanvas);
+    } catch (RuntimeException e) {
+      //软件Canvas无法绘制硬件位图
+      return false;
+    } finally {
+      snapshotCanvas.restoreToCount(saveCount);
+    }
+    return true;
+  }
+
+  private void releaseSnapshot() {
+    snapshotPicture = null;
+    if (snapshot != null) {
+      snapshot.recycle();
+      snapshot = null;
+      snapshotCanvas = null;
+    }
+  }
+}
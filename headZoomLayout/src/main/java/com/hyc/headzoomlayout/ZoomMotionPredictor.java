@@ -0,0 +1,132 @@
+package com.hyc.headzoomlayout;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 低延迟模式下的手指位置预测，封装API 34的android.view.MotionPredictor
+ * 从ACTION_DOWN开始记录完整的事件流，设备不支持预测时不做任何处理。
+ * 库以较低的compileSdk编译，MotionPredictor通过反射调用，调用参数使用复用的数组
+ */
+final class ZoomMotionPredictor {
+
+  private final Context context;
+  private final Constructor<?> predictorConstructor;
+  private final Method isPredictionAvailable;
+  private final Method record;
+  private final Method predict;
+  private final Object[] availabilityArgs = new Object[2];
+  private final Object[] recordArgs = new Object[1];
+  private final Object[] predictArgs = new Object[1];
+  private Object predictor;
+  /**
+   * 当前手势是否可以预测，只有从ACTION_DOWN开始记录的手势才能预测
+   */
+  private boolean isPredicting = false;
+
+  private ZoomMotionPredictor(Context context, Class<?> predictorClass)
+      throws NoSuchMethodException {
+    this.context = context;
+    predictorConstructor = predictorClass.getConstructor(Context.class);
+    isPredictionAvailable = predictorClass.getMethod("isPredictionAvailable", int.class,
+        int.class);
+    record = predictorClass.getMethod("record", MotionEvent.class);
+    predict = predictorClass.getMethod("predict", long.class);
+  }
+
+  /**
+   * @return 系统不支持MotionPredictor时返回null
+   */
+  static ZoomMotionPredictor create(Context context) {
+    try {
+      return new ZoomMotionPredictor(context, Class.forName("android.view.MotionPredictor"));
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 记录触摸事件，需要在事件被修改之前调用
+   */
+  void record(MotionEvent ev) {
+    int action = ev.getActionMasked();
+    if (action == MotionEvent.ACTION_DOWN) {
+      if (predictor == null) {
+        predictor = newInstance(predictorConstructor, context);
+      }
+      availabilityArgs[0] = ev.getDeviceId();
+      availabilityArgs[1] = ev.getSource();
+      isPredicting = (Boolean) invoke(isPredictionAvailable, predictor, availabilityArgs);
+    }
+    if (!isPredicting) {
+      return;
+    }
+    recordArgs[0] = ev;
+    invoke(record, predictor, recordArgs);
+    recordArgs[0] = null;
+    if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+      isPredicting = false;
+    }
+  }
+
+  /**
+   * 预测手指在指定时间的位置
+   *
+   * @param predictionTimeNanos 预测的目标时间，与{@link System#nanoTime()}使用相同的时间基准
+   * @return 预测的Y坐标，无法预测时返回{@link Float#NaN}
+   */
+  float predictY(long predictionTimeNanos, int pointerId) {
+    if (!isPredicting) {
+      return Float.NaN;
+    }
+    predictArgs[0] = predictionTimeNanos;
+    MotionEvent predicted = (MotionEvent) invoke(predict, predictor, predictArgs);
+    if (predicted == null) {
+      return Float.NaN;
+    }
+    int pointerIndex = predicted.findPointerIndex(pointerId);
+    float y = pointerIndex >= 0 ? predicted.getY(pointerIndex) : Float.NaN;
+    predicted.recycle();
+    return y;
+  }
+
+  /**
+   * 停止预测当前手势，下一次ACTION_DOWN时重新开始
+   */
+  void reset() {
+    isPredicting = false;
+  }
+
+  private static Object newInstance(Constructor<?> constructor, Object arg) {
+    try {
+      return constructor.newInstance(arg);
+    } catch (InstantiationException e) {
+      throw new IllegalStateException(e);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (InvocationTargetException e) {
+      throw rethrow(e);
+    }
+  }
+
+  private static Object invoke(Method method, Object receiver, Object[] args) {
+    try {
+      return method.invoke(receiver, args);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (InvocationTargetException e) {
+      throw rethrow(e);
+    }
+  }
+
+  private static RuntimeException rethrow(InvocationTargetException e) {
+    Throwable cause = e.getCause();
+    return cause instanceof RuntimeException
+        ? (RuntimeException) cause : new IllegalStateException(cause);
+  }
+}
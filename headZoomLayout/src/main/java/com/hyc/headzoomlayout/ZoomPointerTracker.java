@@ -0,0 +1,100 @@
+package com.hyc.headzoomlayout;
+
+import android.view.MotionEvent;
+import java.util.Arrays;
+
+/**
+ * 活跃手指的跟踪
+ * 在布局的dispatchTouchEvent中接收手势的全部事件，由ACTION_POINTER_DOWN/UP维护手指id到下标的映射，
+ * 事件交给子View处理期间切换手指也能跟踪，查询下标时不会抛出异常
+ */
+final class ZoomPointerTracker {
+
+  /**
+   * MotionEvent的手指id取值为[0,31]
+   */
+  private static final int MAX_POINTER_ID = 31;
+
+  private final int[] pointerIndexes = new int[MAX_POINTER_ID + 1];
+  private int activePointerId = HeadZoomLayout.INVALID_POINTER;
+
+  ZoomPointerTracker() {
+    Arrays.fill(pointerIndexes, -1);
+  }
+
+  /**
+   * 更新手指状态，ACTION_UP和ACTION_CANCEL需要在事件处理完成后调用{@link ZoomPointerTracker#clear()}
+   *
+   * @return 活跃手指是否发生变化
+   */
+  boolean onTouchEvent(MotionEvent ev) {
+    int actionIndex = ev.getActionIndex();
+    switch (ev.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        updateIndexes(ev, -1);
+        activePointerId = ev.getPointerId(0);
+        return true;
+      case MotionEvent.ACTION_POINTER_DOWN:
+        //新按下的手指成为活跃手指
+        updateIndexes(ev, -1);
+        activePointerId = ev.getPointerId(actionIndex);
+        return true;
+      case MotionEvent.ACTION_POINTER_UP:
+        int pointerId = ev.getPointerId(actionIndex);
+        updateIndexes(ev, actionIndex);
+        if (pointerId != activePointerId) {
+          return false;
+        }
+        //活跃手指抬起时切换到剩余的手指
+        activePointerId = ev.getPointerId(actionIndex == 0 ? 1 : 0);
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  int getActivePointerId() {
+    return activePointerId;
+  }
+
+  /**
+   * 获取活跃手指在事件中的下标
+   *
+   * @return 没有活跃手指或事件中不包含活跃手指时返回-1
+   */
+  int findActivePointerIndex(MotionEvent ev) {
+    if (activePointerId == HeadZoomLayout.INVALID_POINTER) {
+      return -1;
+    }
+    int index = pointerIndexes[activePointerId];
+    if (index >= 0 && index < ev.getPointerCount() && ev.getPointerId(index) == activePointerId) {
+      return index;
+    }
+    //事件不是由当前手势产生，例如在手势中途开始跟踪
+    return ev.findPointerIndex(activePointerId);
+  }
+
+  void clear() {
+    Arrays.fill(pointerIndexes, -1);
+    activePointerId = HeadZoomLayout.INVALID_POINTER;
+  }
+
+  /**
+   * 根据事件中的手指顺序重建映射
+   *
+   * @param removedIndex 抬起的手指下标，没有时为-1
+   */
+  private void updateIndexes(MotionEvent ev, int removedIndex) {
+    Arrays.fill(pointerIndexes, -1);
+    int count = ev.getPointerCount();
+    for (int i = 0, index = 0; i < count; i++) {
+      if (i == removedIndex) {
+        continue;
+      }
+      int pointerId = ev.getPointerId(i);
+      if (pointerId <= MAX_POINTER_ID) {
+        pointerIndexes[pointerId] = index++;
+      }
+    }
+  }
+}
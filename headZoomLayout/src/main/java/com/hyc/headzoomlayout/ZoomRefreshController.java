@@ -0,0 +1,143 @@
+package com.hyc.headzoomlayout;
+
+import com.hyc.headzoomlayout.HeadZoomLayout.OnRefreshListener;
+import java.util.concurrent.Executor;
+
+/**
+ * 下拉刷新的阈值判断
+ * 拖拽时放大比例越过预备阈值立即回调预加载，不必等到松手回弹后才开始加载；
+ * 回退到预备阈值以下时取消预加载；松手时到达触发阈值则确认刷新，由布局将头部停在刷新高度
+ */
+final class ZoomRefreshController {
+
+  private OnRefreshListener listener;
+  private Executor executor;
+  private float armFraction;
+  private float triggerFraction;
+  private float refreshingFraction;
+  /**
+   * 当前的预加载，未越过预备阈值时为null
+   */
+  private RefreshPrefetch prefetch;
+  private boolean isRefreshing = false;
+
+  void setOnRefreshListener(OnRefreshListener listener, Executor executor) {
+    if (listener != this.listener) {
+      reset();
+    }
+    this.listener = listener;
+    this.executor = executor;
+  }
+
+  void setThresholds(float armFraction, float triggerFraction) {
+    this.armFraction = armFraction;
+    this.triggerFraction = Math.max(armFraction, triggerFraction);
+  }
+
+  float getArmFraction() {
+    return armFraction;
+  }
+
+  float getTriggerFraction() {
+    return triggerFraction;
+  }
+
+  void setRefreshingFraction(float refreshingFraction) {
+    this.refreshingFraction = refreshingFraction;
+  }
+
+  float getRefreshingFraction() {
+    return refreshingFraction;
+  }
+
+  boolean isRefreshing() {
+    return isRefreshing;
+  }
+
+  /**
+   * 拖拽或嵌套滑动放大时调用
+   */
+  void onPull(float fraction) {
+    if (listener == null || isRefreshing) {
+      return;
+    }
+    if (prefetch == null) {
+      if (fraction >= armFraction && fraction > 0) {
+        final RefreshPrefetch newPrefetch = new RefreshPrefetch();
+        final OnRefreshListener target = listener;
+        prefetch = newPrefetch;
+        execute(new Runnable() {
+          @Override
+          public void run() {
+            target.onPrefetch(newPrefetch);
+          }
+        });
+      }
+    } else if (fraction < armFraction) {
+      cancelPrefetch();
+    }
+  }
+
+  /**
+   * 松手时调用，到达触发阈值时确认刷新，此后{@link ZoomRefreshController#isRefreshing()}返回true
+   */
+  void onRelease(float fraction) {
+    if (isRefreshing || prefetch == null) {
+      return;
+    }
+    if (fraction < triggerFraction) {
+      cancelPrefetch();
+      return;
+    }
+    isRefreshing = true;
+    prefetch.commit();
+    listener.onRefresh(prefetch);
+  }
+
+  /**
+   * 加载完成，结束刷新
+   */
+  void finish() {
+    isRefreshing = false;
+    prefetch = null;
+  }
+
+  /**
+   * 取消尚未确认的预加载
+   */
+  void cancelPrefetch() {
+    if (prefetch == null || isRefreshing) {
+      return;
+    }
+    final RefreshPrefetch cancelled = prefetch;
+    final OnRefreshListener target = listener;
+    prefetch = null;
+    cancelled.cancel();
+    execute(new Runnable() {
+      @Override
+      public void run() {
+        target.onPrefetchCancelled(cancelled);
+      }
+    });
+  }
+
+  /**
+   * 取消尚未确认的预加载并结束刷新，在布局复用时调用。
+   * 已确认的刷新由调用方负责结束加载，不回调onPrefetchCancelled
+   */
+  void reset() {
+    if (isRefreshing) {
+      finish();
+      return;
+    }
+    cancelPrefetch();
+  }
+
+  private void execute(Runnable runnable) {
+    if (executor == null) {
+      runnable.run();
+    } else {
+      executor.execute(runnable);
+    }
+  }
+}
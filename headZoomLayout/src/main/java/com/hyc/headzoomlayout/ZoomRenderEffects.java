@@ -0,0 +1,196 @@
+package com.hyc.headzoomlayout;
+
+import android.graphics.ColorFilter;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Shader;
+import android.view.View;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * API 31以上头部放大时的模糊和压暗
+ * 通过View.setRenderEffect交给RenderThread在GPU上处理，
+ * 不需要在后台线程预先计算模糊，也不需要由布局额外绘制。
+ * 半径和压暗比例按固定步长取整，放大距离的细微变化不会每帧创建新的RenderEffect。
+ * 库以较低的compileSdk编译，RenderEffect通过反射调用，只在取整后的值变化时才会调用
+ */
+final class ZoomRenderEffects {
+
+  static final float RADIUS_STEP = 0.5f;
+  static final float DIM_STEP = 1 / 64f;
+
+  private final EffectFactory factory;
+  private float maxBlurRadius = 0;
+  private float maxDimAmount = 0;
+  private View target;
+  private float appliedRadius = 0;
+  private float appliedDim = 0;
+
+  /**
+   * 创建RenderEffect的方式，测试中替换为记录调用的实现
+   */
+  interface EffectFactory {
+
+    Object createBlurEffect(float radius);
+
+    Object createDimEffect(float dim);
+
+    /**
+     * @param outer 作用在inner结果上的效果
+     */
+    Object createChainEffect(Object outer, Object inner);
+
+    /**
+     * @param effect 为null时移除
+     */
+    void setRenderEffect(View target, Object effect);
+  }
+
+  ZoomRenderEffects(EffectFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * @return 系统不支持RenderEffect时返回null
+   */
+  static ZoomRenderEffects create() {
+    EffectFactory factory = ReflectiveEffectFactory.create();
+    return factory != null ? new ZoomRenderEffects(factory) : null;
+  }
+
+  void setMaxBlurRadius(float maxBlurRadius) {
+    this.maxBlurRadius = Math.max(0, maxBlurRadius);
+  }
+
+  void setMaxDimAmount(float maxDimAmount) {
+    this.maxDimAmount = Math.max(0, Math.min(1, maxDimAmount));
+  }
+
+  /**
+   * 设置需要模糊的View，在放大开始时调用，目标变化时移除旧目标的RenderEffect
+   *
+   * @param target 头部背景图或头部本身
+   */
+  void setTarget(View target) {
+    if (this.target != target) {
+      clear();
+      this.target = target;
+    }
+  }
+
+  /**
+   * 按放大比例更新目标View的RenderEffect
+   *
+   * @param fraction 放大比例，为0时移除RenderEffect
+   */
+  void apply(float fraction) {
+    if (target == null) {
+      return;
+    }
+    float radius = quantize(maxBlurRadius * fraction, RADIUS_STEP);
+    float dim = quantize(maxDimAmount * fraction, DIM_STEP);
+    if (radius == appliedRadius && dim == appliedDim) {
+      return;
+    }
+    appliedRadius = radius;
+    appliedDim = dim;
+    factory.setRenderEffect(target, createEffect(radius, dim));
+  }
+
+  /**
+   * 移除目标View的RenderEffect
+   */
+  void clear() {
+    if (target != null && (appliedRadius > 0 || appliedDim > 0)) {
+      factory.setRenderEffect(target, null);
+    }
+    target = null;
+    appliedRadius = 0;
+    appliedDim = 0;
+  }
+
+  /**
+   * @return 半径和压暗比例都为0时返回null
+   */
+  private Object createEffect(float radius, float dim) {
+    Object blur = radius > 0 ? factory.createBlurEffect(radius) : null;
+    if (dim <= 0) {
+      return blur;
+    }
+    Object dimEffect = factory.createDimEffect(dim);
+    //先模糊再压暗
+    return blur == null ? dimEffect : factory.createChainEffect(dimEffect, blur);
+  }
+
+  static float quantize(float value, float step) {
+    return Math.round(value / step) * step;
+  }
+
+  /**
+   * 通过反射调用android.graphics.RenderEffect和View.setRenderEffect
+   */
+  private static final class ReflectiveEffectFactory implements EffectFactory {
+
+    private final Method createBlurEffect;
+    private final Method createColorFilterEffect;
+    private final Method createChainEffect;
+    private final Method setRenderEffect;
+
+    private ReflectiveEffectFactory(Class<?> effectClass) throws NoSuchMethodException {
+      createBlurEffect = effectClass.getMethod("createBlurEffect", float.class, float.class,
+          Shader.TileMode.class);
+      createColorFilterEffect = effectClass.getMethod("createColorFilterEffect",
+          ColorFilter.class);
+      createChainEffect = effectClass.getMethod("createChainEffect", effectClass, effectClass);
+      setRenderEffect = View.class.getMethod("setRenderEffect", effectClass);
+    }
+
+    static EffectFactory create() {
+      try {
+        return new ReflectiveEffectFactory(Class.forName("android.graphics.RenderEffect"));
+      } catch (ClassNotFoundException e) {
+        return null;
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public Object createBlurEffect(float radius) {
+      return invoke(createBlurEffect, null, radius, radius, Shader.TileMode.CLAMP);
+    }
+
+    @Override
+    public Object createDimEffect(float dim) {
+      float scale = 1 - dim;
+      ColorMatrix colorMatrix = new ColorMatrix();
+      colorMatrix.setScale(scale, scale, scale, 1);
+      return invoke(createColorFilterEffect, null, new ColorMatrixColorFilter(colorMatrix));
+    }
+
+    @Override
+    public Object createChainEffect(Object outer, Object inner) {
+      return invoke(createChainEffect, null, outer, inner);
+    }
+
+    @Override
+    public void setRenderEffect(View target, Object effect) {
+      invoke(setRenderEffect, target, effect);
+    }
+
+    private static Object invoke(Method method, Object receiver, Object... args) {
+      try {
+        return method.invoke(receiver, args);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.hyc.headzoomlayout;
+
+import android.graphics.Matrix;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 头部与子View之间的事件交接
+ * 头部复原后将手势交给子View时，合成ACTION_DOWN（多指时依次合成ACTION_POINTER_DOWN），
+ * 头部重新接管时由当前事件复制出ACTION_CANCEL，保证子View收到完整的事件序列。
+ * 真实事件只临时偏移坐标，分发后立即还原；合成事件的手指数据使用复用的数组，
+ * MotionEvent从系统的回收池中获取，分发后立即回收，不会每帧分配对象
+ */
+final class ZoomTouchHandoff {
+
+  private final ViewGroup host;
+  /**
+   * 子View是否正在接收手动分发的事件
+   */
+  private boolean isChildReceiving = false;
+  private MotionEvent.PointerProperties[] pointerProperties = new MotionEvent.PointerProperties[0];
+  private MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[0];
+  private final Matrix inverseMatrix = new Matrix();
+
+  ZoomTouchHandoff(ViewGroup host) {
+    this.host = host;
+  }
+
+  boolean isChildReceiving() {
+    return isChildReceiving;
+  }
+
+  /**
+   * 将手势交给子View，以当前事件的位置合成ACTION_DOWN和ACTION_POINTER_DOWN
+   *
+   * @return 子View是否处理了ACTION_DOWN
+   */
+  boolean handOff(View child, MotionEvent ev) {
+    int pointerCount = ev.getPointerCount();
+    ensurePointerCapacity(pointerCount);
+    for (int i = 0; i < pointerCount; i++) {
+      ev.getPointerProperties(i, pointerProperties[i]);
+      ev.getPointerCoords(i, pointerCoords[i]);
+    }
+    //子View的手势从交接时开始，避免长按等按down时间计算的逻辑立即触发
+    long downTime = ev.getEventTime();
+    boolean handled = false;
+    for (int count = 1; count <= pointerCount; count++) {
+      int action = count == 1 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_POINTER_DOWN
+          | ((count - 1) << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+      MotionEvent event = MotionEvent.obtain(downTime, ev.getEventTime(), action, count,
+          pointerProperties, pointerCoords, ev.getMetaState(), ev.getButtonState(),
+          ev.getXPrecision(), ev.getYPrecision(), ev.getDeviceId(), ev.getEdgeFlags(),
+          ev.getSource(), ev.getFlags());
+      boolean result = dispatchTransformed(child, event);
+      event.recycle();
+      if (count == 1) {
+        handled = result;
+      }
+    }
+    isChildReceiving = true;
+    return handled;
+  }
+
+  /**
+   * 转发手势中的真实事件，ACTION_UP和ACTION_CANCEL后结束交接
+   */
+  boolean forward(View child, MotionEvent ev) {
+    int action = ev.getActionMasked();
+    if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+      isChildReceiving = false;
+    }
+    return dispatchTransformed(child, ev);
+  }
+
+  /**
+   * 头部重新接管手势，向子View发送ACTION_CANCEL
+   */
+  void takeOver(View child, MotionEvent ev) {
+    if (!isChildReceiving) {
+      return;
+    }
+    isChildReceiving = false;
+    //复制一份再修改action，不改动仍在分发中的真实事件
+    MotionEvent cancel = MotionEvent.obtain(ev);
+    cancel.setAction(MotionEvent.ACTION_CANCEL);
+    dispatchTransformed(child, cancel);
+    cancel.recycle();
+  }
+
+  /**
+   * 新的手势开始时调用，不向子View发送事件
+   */
+  void reset() {
+    isChildReceiving = false;
+  }
+
+  /**
+   * 按子View的位置和变换转换坐标后分发
+   */
+  private boolean dispatchTransformed(View child, MotionEvent ev) {
+    float offsetX = host.getScrollX() - child.getLeft();
+    float offsetY = host.getScrollY() - child.getTop();
+    Matrix matrix = child.getMatrix();
+    if (matrix.isIdentity()) {
+      ev.offsetLocation(offsetX, offsetY);
+      boolean handled = child.dispatchTouchEvent(ev);
+      ev.offsetLocation(-offsetX, -offsetY);
+      return handled;
+    }
+    MotionEvent transformed = MotionEvent.obtain(ev);
+    transformed.offsetLocation(offsetX, offsetY);
+    matrix.invert(inverseMatrix);
+    transformed.transform(inverseMatrix);
+    boolean handled = child.dispatchTouchEvent(transformed);
+    transformed.recycle();
+    return handled;
+  }
+
+  private void ensurePointerCapacity(int pointerCount) {
+    if (pointerProperties.length >= pointerCount) {
+      return;
+    }
+    MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+    MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+    System.arraycopy(pointerProperties, 0, properties, 0, pointerProperties.length);
+    System.arraycopy(pointerCoords, 0, coords, 0, pointerCoords.length);
+    for (int i = pointerProperties.length; i < pointerCount; i++) {
+      properties[i] = new MotionEvent.PointerProperties();
+      coords[i] = new MotionEvent.PointerCoords();
+    }
+    pointerProperties = properties;
+    pointerCoords = coords;
+  }
+}
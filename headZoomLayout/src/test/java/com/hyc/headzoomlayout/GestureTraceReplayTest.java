@@ -0,0 +1,242 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * 轨迹回放测试：录制一段合成的拖拽和嵌套滑动手势，回放到新的HeadZoomLayout中，
+ * 校验两次回放的放大距离曲线完全一致，以及回放报告中的事件数、布局次数和录制的尺寸
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class GestureTraceReplayTest {
+
+  private static final int HEAD_ID = 0x7f0a0001;
+  private static final long FRAME_INTERVAL_MS = 16;
+  private static final int SAMPLES_PER_FRAME = 4;
+  private static final float SAMPLE_DY = 6f;
+  private static final float TOUCH_X = 100f;
+  private static final float TOUCH_Y = 100f;
+  private static final int MAX_RECOVERY_FRAMES = 120;
+  /**
+   * 单指MOVE事件的记录约20字节
+   */
+  private static final int MAX_BYTES_PER_EVENT = 32;
+
+  private Activity activity;
+  private int motionEvents;
+  private int nestedScrollEvents;
+
+  private final GestureTraceReplayer.Driver driver = new GestureTraceReplayer.Driver() {
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void advanceBy(long millis) {
+      ShadowLooper.idleMainLooper(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long currentThreadCpuTimeNanos() {
+      return threadMXBean.isCurrentThreadCpuTimeSupported()
+          ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+  };
+
+  @Before
+  public void setUp() {
+    ShadowChoreographer.setPostFrameCallbackDelay((int) FRAME_INTERVAL_MS);
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+  }
+
+  @After
+  public void tearDown() {
+    ShadowChoreographer.reset();
+  }
+
+  @Test
+  public void replayIsDeterministic() {
+    byte[] trace = recordGesture();
+    GestureReplayReport first = replayIntoNewLayout(trace);
+    GestureReplayReport second = replayIntoNewLayout(trace);
+
+    assertEquals(first.getSampleCount(), second.getSampleCount());
+    for (int i = 0; i < first.getSampleCount(); i++) {
+      assertEquals(first.getSampleTimeMillis(i), second.getSampleTimeMillis(i));
+      assertEquals("sample " + i, first.getSampleZoomDistance(i),
+          second.getSampleZoomDistance(i), 0f);
+    }
+    assertEquals(first.getFrameCount(), second.getFrameCount());
+    assertEquals(first.getLayoutCount(), second.getLayoutCount());
+  }
+
+  @Test
+  public void replayReportsTimelineAndCounts() {
+    byte[] trace = recordGesture();
+    GestureReplayReport report = replayIntoNewLayout(trace);
+
+    assertEquals(motionEvents, report.getMotionEventCount());
+    assertEquals(nestedScrollEvents, report.getNestedScrollEventCount());
+    assertEquals(motionEvents + nestedScrollEvents, report.getEventCount());
+    assertEquals(100, report.getRecordedHeadViewHeight());
+    assertTrue(report.getMaxZoomDistance() > 0);
+    assertEquals("header did not recover", 0f,
+        report.getSampleZoomDistance(report.getSampleCount() - 1), 0f);
+    assertTrue(report.getFrameCount() > 0);
+    //变换模式下放大和回弹都不会重新布局内容View
+    assertEquals(0, report.getLayoutCount());
+    assertTrue(report.getTotalEventCpuTimeNanos() >= report.getMaxEventCpuTimeNanos());
+    for (int i = 1; i < report.getSampleCount(); i++) {
+      assertTrue(report.getSampleTimeMillis(i) >= report.getSampleTimeMillis(i - 1));
+    }
+  }
+
+  @Test
+  public void traceIsCompact() {
+    byte[] trace = recordGesture();
+    assertTrue(trace.length + " bytes for " + (motionEvents + nestedScrollEvents) + " events",
+        trace.length <= MAX_BYTES_PER_EVENT * (motionEvents + nestedScrollEvents));
+  }
+
+  @Test
+  public void recorderStopsAtCapacity() {
+    HeadZoomLayout layout = createLayout();
+    GestureTraceRecorder recorder = new GestureTraceRecorder(64);
+    layout.setGestureTraceRecorder(recorder);
+    long downTime = SystemClock.uptimeMillis();
+    for (int i = 0; i < 20; i++) {
+      dispatch(layout, downTime, i == 0 ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_MOVE,
+          TOUCH_Y + i);
+    }
+    assertTrue(recorder.isTruncated());
+    assertTrue(recorder.size() < 64 + MAX_BYTES_PER_EVENT);
+    recorder.clear();
+    assertFalse(recorder.isTruncated());
+    assertEquals(0, recorder.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsInvalidTrace() {
+    new GestureTraceReplayer(createLayout(), driver).replay(new byte[] {1, 2, 3, 4, 5, 6});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsTruncatedTrace() {
+    byte[] trace = recordGesture();
+    new GestureTraceReplayer(createLayout(), driver)
+        .replay(Arrays.copyOf(trace, trace.length - 1));
+  }
+
+  /**
+   * 录制一次拖拽回弹和一次嵌套滑动回弹
+   */
+  private byte[] recordGesture() {
+    motionEvents = 0;
+    nestedScrollEvents = 0;
+    HeadZoomLayout layout = createLayout();
+    GestureTraceRecorder recorder = new GestureTraceRecorder();
+    layout.setGestureTraceRecorder(recorder);
+
+    long downTime = SystemClock.uptimeMillis();
+    float fingerY = TOUCH_Y;
+    dispatch(layout, downTime, MotionEvent.ACTION_DOWN, fingerY);
+    for (int frame = 0; frame < 20; frame++) {
+      for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+        fingerY += SAMPLE_DY;
+        dispatch(layout, downTime, MotionEvent.ACTION_MOVE, fingerY);
+      }
+      advanceFrame();
+    }
+    assertTrue(layout.getZoomDistance() > 0);
+    dispatch(layout, downTime, MotionEvent.ACTION_UP, fingerY);
+    recover(layout);
+
+    View content = layout.getChildAt(0);
+    layout.onStartNestedScroll(content, content, View.SCROLL_AXIS_VERTICAL);
+    layout.onNestedScrollAccepted(content, content, View.SCROLL_AXIS_VERTICAL);
+    nestedScrollEvents += 2;
+    for (int frame = 0; frame < 10; frame++) {
+      for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+        layout.onNestedScroll(content, 0, 0, 0, (int) -SAMPLE_DY);
+        nestedScrollEvents++;
+      }
+      advanceFrame();
+    }
+    assertTrue(layout.getZoomDistance() > 0);
+    layout.onStopNestedScroll(content);
+    nestedScrollEvents++;
+    recover(layout);
+
+    layout.setGestureTraceRecorder(null);
+    assertFalse(recorder.isTruncated());
+    return recorder.toByteArray();
+  }
+
+  private GestureReplayReport replayIntoNewLayout(byte[] trace) {
+    HeadZoomLayout layout = createLayout();
+    return new GestureTraceReplayer(layout, driver).replay(trace);
+  }
+
+  /**
+   * 创建与性能测试相同结构的布局，使用变换模式
+   */
+  private HeadZoomLayout createLayout() {
+    HeadZoomLayout layout = new HeadZoomLayout(activity);
+    LinearLayout contentView = new LinearLayout(activity);
+    contentView.setOrientation(LinearLayout.VERTICAL);
+    View headView = new FrameLayout(activity);
+    headView.setId(HEAD_ID);
+    contentView.addView(headView, new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 100));
+    contentView.addView(new View(activity), new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 1000));
+    layout.addView(contentView, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    layout.setHeadViewId(HEAD_ID);
+    layout.setZoomMode(HeadZoomLayout.ZOOM_MODE_TRANSFORM);
+    activity.setContentView(layout);
+    ShadowLooper.idleMainLooper();
+    assertTrue("head view must be laid out", headView.getMeasuredHeight() > 0);
+    return layout;
+  }
+
+  private void recover(HeadZoomLayout layout) {
+    for (int frame = 0; frame < MAX_RECOVERY_FRAMES && layout.getZoomDistance() > 0; frame++) {
+      advanceFrame();
+    }
+    assertEquals("header did not recover", 0f, layout.getZoomDistance(), 0f);
+  }
+
+  private void advanceFrame() {
+    ShadowLooper.idleMainLooper(FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void dispatch(HeadZoomLayout layout, long downTime, int action, float y) {
+    MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action,
+        TOUCH_X, y, 0);
+    layout.dispatchTouchEvent(event);
+    event.recycle();
+    motionEvents++;
+  }
+}
@@ -0,0 +1,130 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Rect;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * 解码区域和采样率的计算：按区域解码的bitmap做centerCrop，显示的内容与使用原图一致
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class HeadZoomImageLoaderTest {
+
+  private static final int REST_WIDTH = 1080;
+  private static final int REST_HEIGHT = 600;
+  private static final float MAX_SCALE = 1.5f;
+  /**
+   * 区域的尺寸向上取整、位置向下取整，允许1像素的误差
+   */
+  private static final float TOLERANCE = 1f;
+
+  @Test
+  public void regionIsCenterCropOfOriginalInTransformMode() {
+    assertCenterCropMatches(4000, 3000, REST_WIDTH, REST_HEIGHT,
+        (int) (REST_WIDTH * MAX_SCALE), (int) (REST_HEIGHT * MAX_SCALE));
+    assertCenterCropMatches(3000, 4000, REST_WIDTH, REST_HEIGHT,
+        (int) (REST_WIDTH * MAX_SCALE), (int) (REST_HEIGHT * MAX_SCALE));
+  }
+
+  @Test
+  public void regionIsCenterCropOfOriginalInLayoutMode() {
+    //布局模式下只有高度变大，两种宽高比的显示区域不同，区域是两者的并集
+    assertCenterCropMatches(4000, 3000, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, (int) (REST_HEIGHT * MAX_SCALE));
+    assertCenterCropMatches(3000, 4000, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, (int) (REST_HEIGHT * MAX_SCALE));
+    assertCenterCropMatches(1920, 1080, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, REST_HEIGHT * 3);
+  }
+
+  @Test
+  public void regionIsUnionOfBothCrops() {
+    Rect region = new Rect();
+    HeadZoomImageLoader.computeRegion(4000, 3000, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, REST_HEIGHT * 3, region);
+    //静止时宽度占满，放大到最大时高度占满
+    assertEquals(4000, region.width());
+    assertEquals(3000, region.height());
+    HeadZoomImageLoader.computeRegion(4000, 3000, REST_WIDTH, REST_HEIGHT,
+        (int) (REST_WIDTH * MAX_SCALE), (int) (REST_HEIGHT * MAX_SCALE), region);
+    //宽高等比例放大时两种显示区域相同
+    assertEquals(4000, region.width());
+    assertEquals(2223, region.height());
+    assertEquals(388, region.top);
+  }
+
+  @Test
+  public void smallSourceUsesWholeImage() {
+    Rect region = new Rect();
+    HeadZoomImageLoader.computeRegion(500, 300, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, (int) (REST_HEIGHT * MAX_SCALE), region);
+    assertTrue(region.left >= 0 && region.top >= 0);
+    assertTrue(region.right <= 500 && region.bottom <= 300);
+    assertCenterCropMatches(500, 300, REST_WIDTH, REST_HEIGHT,
+        REST_WIDTH, (int) (REST_HEIGHT * MAX_SCALE));
+  }
+
+  @Test
+  public void sampleSizeNeverDropsBelowDisplayResolution() {
+    assertEquals(1, HeadZoomImageLoader.computeSampleSize(2f));
+    assertEquals(1, HeadZoomImageLoader.computeSampleSize(1f));
+    assertEquals(1, HeadZoomImageLoader.computeSampleSize(0.6f));
+    assertEquals(2, HeadZoomImageLoader.computeSampleSize(0.5f));
+    assertEquals(2, HeadZoomImageLoader.computeSampleSize(0.3f));
+    assertEquals(4, HeadZoomImageLoader.computeSampleSize(0.25f));
+    assertEquals(8, HeadZoomImageLoader.computeSampleSize(0.1f));
+    for (int i = 1; i <= 100; i++) {
+      float scale = i / 100f;
+      int sampleSize = HeadZoomImageLoader.computeSampleSize(scale);
+      //采样后的尺寸不小于显示尺寸，再翻倍就会小于显示尺寸
+      assertTrue(sampleSize * scale <= 1);
+      assertTrue(sampleSize * 2 * scale > 1);
+    }
+  }
+
+  /**
+   * 在静止和放大到最大两种显示尺寸下，对区域做centerCrop和对原图做centerCrop显示相同的内容
+   */
+  private static void assertCenterCropMatches(int sourceWidth, int sourceHeight, int restWidth,
+      int restHeight, int maxWidth, int maxHeight) {
+    Rect region = new Rect();
+    HeadZoomImageLoader.computeRegion(sourceWidth, sourceHeight, restWidth, restHeight,
+        maxWidth, maxHeight, region);
+    assertTrue(region.left >= 0 && region.top >= 0);
+    assertTrue(region.right <= sourceWidth && region.bottom <= sourceHeight);
+    assertCropEquals(sourceWidth, sourceHeight, region, restWidth, restHeight);
+    assertCropEquals(sourceWidth, sourceHeight, region, maxWidth, maxHeight);
+  }
+
+  private static void assertCropEquals(int sourceWidth, int sourceHeight, Rect region,
+      int displayWidth, int displayHeight) {
+    float[] original = centerCrop(0, 0, sourceWidth, sourceHeight, displayWidth, displayHeight);
+    float[] fromRegion = centerCrop(region.left, region.top, region.width(), region.height(),
+        displayWidth, displayHeight);
+    String message = sourceWidth + "x" + sourceHeight + " -> " + displayWidth + "x"
+        + displayHeight + " region " + region;
+    for (int i = 0; i < original.length; i++) {
+      assertEquals(message, original[i], fromRegion[i], TOLERANCE);
+    }
+  }
+
+  /**
+   * @return centerCrop显示的区域在原图中的位置{left, top, right, bottom}
+   */
+  private static float[] centerCrop(int left, int top, int width, int height, int displayWidth,
+      int displayHeight) {
+    float scale = Math.max((float) displayWidth / width, (float) displayHeight / height);
+    float visibleWidth = displayWidth / scale;
+    float visibleHeight = displayHeight / scale;
+    float visibleLeft = left + (width - visibleWidth) / 2;
+    float visibleTop = top + (height - visibleHeight) / 2;
+    return new float[] {visibleLeft, visibleTop, visibleLeft + visibleWidth,
+        visibleTop + visibleHeight};
+  }
+}
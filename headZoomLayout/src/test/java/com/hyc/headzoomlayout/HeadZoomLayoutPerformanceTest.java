@@ -0,0 +1,386 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * 性能回归测试：通过合成的拖拽、多指、嵌套滑动和回弹手势驱动HeadZoomLayout，
+ * 校验每帧内容View的requestLayout/onMeasure次数、每个MOVE事件的内存分配以及每帧的监听回调次数。
+ * 每帧模拟多个触摸采样（高采样率屏幕），帧之间通过推进主线程Looper模拟vsync。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class HeadZoomLayoutPerformanceTest {
+
+  private static final int HEAD_ID = 0x7f0a0001;
+  private static final long FRAME_INTERVAL_MS = 16;
+  /**
+   * 每帧的触摸采样数，对应约240Hz的触摸采样率
+   */
+  private static final int SAMPLES_PER_FRAME = 4;
+  private static final float SAMPLE_DY = 6f;
+  private static final float TOUCH_X = 100f;
+  private static final float TOUCH_Y = 100f;
+  /**
+   * Robolectric的shadow自身会产生少量分配，超过该值说明触摸路径上出现了对象分配（事件对象、迭代器、装箱、数组等）
+   */
+  private static final long MAX_ALLOCATED_BYTES_PER_MOVE = 32;
+  private static final int MAX_RECOVERY_FRAMES = 120;
+
+  private HeadZoomLayout headZoomLayout;
+  private CountingLinearLayout contentView;
+  private View headView;
+  private int zoomListenerCalls;
+  private int zoomEventListenerCalls;
+  private long downTime;
+  private float fingerY;
+
+  @Before
+  public void setUp() {
+    ShadowChoreographer.setPostFrameCallbackDelay((int) FRAME_INTERVAL_MS);
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    headZoomLayout = new HeadZoomLayout(activity);
+    contentView = new CountingLinearLayout(activity);
+    contentView.setOrientation(LinearLayout.VERTICAL);
+    headView = new FrameLayout(activity);
+    headView.setId(HEAD_ID);
+    contentView.addView(headView, new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 100));
+    contentView.addView(new View(activity), new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 1000));
+    headZoomLayout.addView(contentView, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    headZoomLayout.setHeadViewId(HEAD_ID);
+    headZoomLayout.addOnHeadZoomListener(new HeadZoomLayout.OnHeadZoomListener() {
+      @Override
+      public void onHeadZoom(boolean isRecovering, float zoomDistance) {
+        zoomListenerCalls++;
+      }
+    });
+    headZoomLayout.addOnHeadZoomEventListener(new HeadZoomLayout.OnHeadZoomEventListener() {
+      @Override
+      public void onHeadZoom(HeadZoomEvent event) {
+        zoomEventListenerCalls++;
+      }
+    });
+    activity.setContentView(headZoomLayout);
+    ShadowLooper.idleMainLooper();
+    assertTrue("head view must be laid out", headView.getMeasuredHeight() > 0);
+  }
+
+  @After
+  public void tearDown() {
+    ShadowChoreographer.reset();
+  }
+
+  @Test
+  public void dragInTransformModeNeverRelayoutsContent() {
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_TRANSFORM);
+    startDrag();
+    contentView.resetCounts();
+    for (int frame = 0; frame < 30; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrameAndCheckBudgets(0, 0);
+    }
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+    up();
+    recoverAndCheckBudgets(0, 0);
+  }
+
+  @Test
+  public void dragInLayoutModeRelayoutsContentAtMostOncePerFrame() {
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_LAYOUT);
+    startDrag();
+    for (int frame = 0; frame < 30; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrameAndCheckBudgets(1, 1);
+    }
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+    up();
+    recoverAndCheckBudgets(1, 1);
+  }
+
+  @Test
+  public void renderEffectIsInactiveBelowApi31() {
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_LAYOUT);
+    headZoomLayout.setRenderEffectEnabled(true);
+    assertTrue(headZoomLayout.isRenderEffectEnabled());
+    assertFalse(headZoomLayout.isRenderEffectActive());
+    startDrag();
+    for (int frame = 0; frame < 30; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrameAndCheckBudgets(1, 1);
+    }
+    //仍然通过修改LayoutParams放大，头部没有被缩放
+    assertTrue(headView.getHeight() > 100);
+    assertEquals(1f, headView.getScaleY(), 0f);
+    up();
+    recoverAndCheckBudgets(1, 1);
+  }
+
+  @Test
+  public void dragInShiftModeOnlyRelayoutsHeader() {
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_SHIFT);
+    View belowHead = contentView.getChildAt(1);
+    int belowHeadTop = belowHead.getTop();
+    startDrag();
+    contentView.resetCounts();
+    for (int frame = 0; frame < 30; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrameAndCheckBudgets(0, 0);
+    }
+    //头部和下方View保持真实的边界
+    int offset = headView.getHeight() - 100;
+    assertTrue(offset > 0);
+    assertEquals(belowHeadTop + offset, belowHead.getTop());
+    up();
+    //还原后父布局重新布局一次
+    recoverAndCheckBudgets(1, 1);
+    advanceFrame();
+    assertEquals(100, headView.getHeight());
+    assertEquals(belowHeadTop, belowHead.getTop());
+  }
+
+  @Test
+  public void multiPointerDragStaysWithinBudgets() {
+    startDrag();
+    for (int frame = 0; frame < 10; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrameAndCheckBudgets(1, 1);
+    }
+    //第二根手指按下，两根手指一起移动
+    dispatch(obtainTwoPointerEvent(MotionEvent.ACTION_POINTER_DOWN
+        | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), fingerY, fingerY + 50));
+    for (int frame = 0; frame < 10; frame++) {
+      for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+        fingerY += SAMPLE_DY;
+        dispatch(obtainTwoPointerEvent(MotionEvent.ACTION_MOVE, fingerY, fingerY + 50));
+      }
+      advanceFrameAndCheckBudgets(1, 1);
+    }
+    //第一根手指抬起，由第二根手指继续拖拽
+    dispatch(obtainTwoPointerEvent(MotionEvent.ACTION_POINTER_UP, fingerY, fingerY + 50));
+    fingerY += 50;
+    for (int frame = 0; frame < 10; frame++) {
+      for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+        fingerY += SAMPLE_DY;
+        dispatch(obtainSecondPointerEvent(MotionEvent.ACTION_MOVE, fingerY));
+      }
+      advanceFrameAndCheckBudgets(1, 1);
+    }
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+    dispatch(obtainSecondPointerEvent(MotionEvent.ACTION_UP, fingerY));
+    recoverAndCheckBudgets(1, 1);
+  }
+
+  @Test
+  public void nestedScrollStaysWithinBudgets() {
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_TRANSFORM);
+    assertTrue(headZoomLayout.onStartNestedScroll(contentView, contentView,
+        View.SCROLL_AXIS_VERTICAL));
+    headZoomLayout.onNestedScrollAccepted(contentView, contentView, View.SCROLL_AXIS_VERTICAL);
+    contentView.resetCounts();
+    for (int frame = 0; frame < 20; frame++) {
+      for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+        headZoomLayout.onNestedScroll(contentView, 0, 0, 0, (int) -SAMPLE_DY);
+      }
+      advanceFrameAndCheckBudgets(0, 0);
+    }
+    int[] consumed = new int[2];
+    for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+      headZoomLayout.onNestedPreScroll(contentView, 0, 1, consumed);
+    }
+    advanceFrameAndCheckBudgets(0, 0);
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+    headZoomLayout.onStopNestedScroll(contentView);
+    recoverAndCheckBudgets(0, 0);
+  }
+
+  @Test
+  public void moveEventsDoNotAllocate() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocationCounter =
+        (com.sun.management.ThreadMXBean) threadMXBean;
+    Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+    allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+    startDrag();
+    //预热，保证VelocityTracker等对象已经创建
+    for (int frame = 0; frame < 10; frame++) {
+      moveSamples(SAMPLE_DY);
+      advanceFrame();
+    }
+    int moveCount = 200;
+    MotionEvent[] moves = new MotionEvent[moveCount];
+    for (int i = 0; i < moveCount; i++) {
+      //上下往返，保持在最大拖拽距离内
+      fingerY += (i / 20) % 2 == 0 ? SAMPLE_DY : -SAMPLE_DY;
+      moves[i] = obtainEvent(MotionEvent.ACTION_MOVE, fingerY);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = allocationCounter.getThreadAllocatedBytes(threadId);
+    for (MotionEvent move : moves) {
+      headZoomLayout.dispatchTouchEvent(move);
+    }
+    long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+    for (MotionEvent move : moves) {
+      move.recycle();
+    }
+    assertTrue("allocated " + allocated + " bytes for " + moveCount + " moves",
+        allocated <= MAX_ALLOCATED_BYTES_PER_MOVE * moveCount);
+  }
+
+  /**
+   * 按下并越过touchSlop，进入拖拽状态
+   */
+  private void startDrag() {
+    downTime = SystemClock.uptimeMillis();
+    fingerY = TOUCH_Y;
+    dispatch(obtainEvent(MotionEvent.ACTION_DOWN, fingerY));
+    for (int i = 0; i < 10; i++) {
+      fingerY += 10;
+      dispatch(obtainEvent(MotionEvent.ACTION_MOVE, fingerY));
+    }
+    advanceFrame();
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+  }
+
+  private void moveSamples(float dy) {
+    for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+      fingerY += dy;
+      dispatch(obtainEvent(MotionEvent.ACTION_MOVE, fingerY));
+    }
+  }
+
+  private void up() {
+    dispatch(obtainEvent(MotionEvent.ACTION_UP, fingerY));
+  }
+
+  private void recoverAndCheckBudgets(int maxLayoutsPerFrame, int maxMeasuresPerFrame) {
+    for (int frame = 0; frame < MAX_RECOVERY_FRAMES; frame++) {
+      advanceFrameAndCheckBudgets(maxLayoutsPerFrame, maxMeasuresPerFrame);
+      if (headZoomLayout.getZoomDistance() == 0) {
+        return;
+      }
+    }
+    assertEquals("header did not recover", 0f, headZoomLayout.getZoomDistance(), 0f);
+  }
+
+  private void advanceFrame() {
+    ShadowLooper.idleMainLooper(FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * 推进一帧，并校验该帧内的布局次数和监听回调次数
+   */
+  private void advanceFrameAndCheckBudgets(int maxLayoutsPerFrame, int maxMeasuresPerFrame) {
+    int requestLayoutCount = contentView.requestLayoutCount;
+    int measureCount = contentView.measureCount;
+    int zoomListenerCount = zoomListenerCalls;
+    int zoomEventListenerCount = zoomEventListenerCalls;
+    advanceFrame();
+    assertTrue("requestLayout called " + (contentView.requestLayoutCount - requestLayoutCount)
+            + " times in one frame",
+        contentView.requestLayoutCount - requestLayoutCount <= maxLayoutsPerFrame);
+    assertTrue("onMeasure called " + (contentView.measureCount - measureCount)
+            + " times in one frame",
+        contentView.measureCount - measureCount <= maxMeasuresPerFrame);
+    assertTrue(zoomListenerCalls - zoomListenerCount <= 1);
+    assertTrue(zoomEventListenerCalls - zoomEventListenerCount <= 1);
+  }
+
+  private void dispatch(MotionEvent event) {
+    headZoomLayout.dispatchTouchEvent(event);
+    event.recycle();
+  }
+
+  private MotionEvent obtainEvent(int action, float y) {
+    return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, TOUCH_X, y, 0);
+  }
+
+  private MotionEvent obtainTwoPointerEvent(int action, float firstY, float secondY) {
+    PointerProperties[] properties = {pointerProperties(0), pointerProperties(1)};
+    PointerCoords[] coords = {pointerCoords(firstY), pointerCoords(secondY)};
+    return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, 2, properties,
+        coords, 0, 0, 1f, 1f, 0, 0, 0, 0);
+  }
+
+  private MotionEvent obtainSecondPointerEvent(int action, float y) {
+    PointerProperties[] properties = {pointerProperties(1)};
+    PointerCoords[] coords = {pointerCoords(y)};
+    return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, 1, properties,
+        coords, 0, 0, 1f, 1f, 0, 0, 0, 0);
+  }
+
+  private static PointerProperties pointerProperties(int id) {
+    PointerProperties properties = new PointerProperties();
+    properties.id = id;
+    properties.toolType = MotionEvent.TOOL_TYPE_FINGER;
+    return properties;
+  }
+
+  private static PointerCoords pointerCoords(float y) {
+    PointerCoords coords = new PointerCoords();
+    coords.x = TOUCH_X;
+    coords.y = y;
+    coords.pressure = 1f;
+    coords.size = 1f;
+    return coords;
+  }
+
+  /**
+   * 统计requestLayout和onMeasure次数的内容View
+   */
+  private static class CountingLinearLayout extends LinearLayout {
+
+    int requestLayoutCount;
+    int measureCount;
+
+    CountingLinearLayout(Context context) {
+      super(context);
+    }
+
+    void resetCounts() {
+      requestLayoutCount = 0;
+      measureCount = 0;
+    }
+
+    @Override
+    public void requestLayout() {
+      requestLayoutCount++;
+      super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+      measureCount++;
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+  }
+}
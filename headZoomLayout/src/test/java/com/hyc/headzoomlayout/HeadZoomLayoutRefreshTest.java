@@ -0,0 +1,159 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * 头部停在刷新高度时的触摸：不拦截按下事件，子View可以正常点击
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class HeadZoomLayoutRefreshTest {
+
+  private static final int HEAD_ID = 0x7f0a0001;
+  private static final long FRAME_INTERVAL_MS = 16;
+  private static final float TOUCH_X = 100f;
+  private static final int MAX_RECOVERY_FRAMES = 120;
+
+  private HeadZoomLayout headZoomLayout;
+  private View belowHead;
+  private int refreshCalls;
+  private int clickCalls;
+  private long downTime;
+
+  @Before
+  public void setUp() {
+    ShadowChoreographer.setPostFrameCallbackDelay((int) FRAME_INTERVAL_MS);
+    Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+    headZoomLayout = new HeadZoomLayout(activity);
+    LinearLayout contentView = new LinearLayout(activity);
+    contentView.setOrientation(LinearLayout.VERTICAL);
+    View headView = new FrameLayout(activity);
+    headView.setId(HEAD_ID);
+    contentView.addView(headView, new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 100));
+    belowHead = new View(activity);
+    belowHead.setOnClickListener(new View.OnClickListener() {
+      @Override
+      public void onClick(View v) {
+        clickCalls++;
+      }
+    });
+    contentView.addView(belowHead, new LinearLayout.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, 1000));
+    headZoomLayout.addView(contentView, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    headZoomLayout.setHeadViewId(HEAD_ID);
+    headZoomLayout.setZoomMode(HeadZoomLayout.ZOOM_MODE_LAYOUT);
+    headZoomLayout.setRefreshThresholds(0.05f, 0.1f);
+    headZoomLayout.setOnRefreshListener(new HeadZoomLayout.OnRefreshListener() {
+      @Override
+      public void onPrefetch(RefreshPrefetch prefetch) {
+      }
+
+      @Override
+      public void onPrefetchCancelled(RefreshPrefetch prefetch) {
+      }
+
+      @Override
+      public void onRefresh(RefreshPrefetch prefetch) {
+        refreshCalls++;
+      }
+    }, null);
+    activity.setContentView(headZoomLayout);
+    ShadowLooper.idleMainLooper();
+  }
+
+  @After
+  public void tearDown() {
+    ShadowChoreographer.reset();
+  }
+
+  @Test
+  public void childReceivesClickWhileRefreshHeld() {
+    pullToRefresh();
+    float zoomDistance = headZoomLayout.getZoomDistance();
+    float y = belowHead.getTop() + 10;
+    tap(y);
+    assertEquals(1, clickCalls);
+    //点击不影响刷新，头部仍停在刷新高度
+    assertTrue(headZoomLayout.isRefreshing());
+    assertEquals(zoomDistance, headZoomLayout.getZoomDistance(), 0f);
+    headZoomLayout.finishRefresh();
+    recover();
+    assertFalse(headZoomLayout.isRefreshing());
+  }
+
+  /**
+   * 下拉越过触发阈值后松手，等待头部回弹到刷新高度
+   */
+  private void pullToRefresh() {
+    downTime = SystemClock.uptimeMillis();
+    float fingerY = 100f;
+    dispatch(obtainEvent(MotionEvent.ACTION_DOWN, fingerY));
+    for (int i = 0; i < 60; i++) {
+      fingerY += 10;
+      dispatch(obtainEvent(MotionEvent.ACTION_MOVE, fingerY));
+      if (i % 4 == 0) {
+        advanceFrame();
+      }
+    }
+    advanceFrame();
+    dispatch(obtainEvent(MotionEvent.ACTION_UP, fingerY));
+    assertEquals(1, refreshCalls);
+    for (int frame = 0; frame < MAX_RECOVERY_FRAMES; frame++) {
+      advanceFrame();
+    }
+    assertTrue(headZoomLayout.isRefreshing());
+    assertTrue(headZoomLayout.getZoomDistance() > 0);
+  }
+
+  private void tap(float y) {
+    downTime = SystemClock.uptimeMillis();
+    dispatch(obtainEvent(MotionEvent.ACTION_DOWN, y));
+    dispatch(obtainEvent(MotionEvent.ACTION_UP, y));
+    ShadowLooper.idleMainLooper();
+  }
+
+  private void recover() {
+    for (int frame = 0; frame < MAX_RECOVERY_FRAMES; frame++) {
+      advanceFrame();
+      if (headZoomLayout.getZoomDistance() == 0) {
+        return;
+      }
+    }
+    assertEquals("header did not recover", 0f, headZoomLayout.getZoomDistance(), 0f);
+  }
+
+  private void advanceFrame() {
+    ShadowLooper.idleMainLooper(FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private void dispatch(MotionEvent event) {
+    headZoomLayout.dispatchTouchEvent(event);
+    event.recycle();
+  }
+
+  private MotionEvent obtainEvent(int action, float y) {
+    return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, TOUCH_X, y, 0);
+  }
+}
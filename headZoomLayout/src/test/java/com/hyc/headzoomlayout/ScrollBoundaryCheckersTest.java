@@ -0,0 +1,118 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.recyclerview.widget.RecyclerView;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * RecyclerView检查器缓存的顶部状态：只在onScrolled中更新，触摸事件中不再询问RecyclerView
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class ScrollBoundaryCheckersTest {
+
+  private FakeRecyclerView recyclerView;
+
+  @Before
+  public void setUp() {
+    recyclerView = new FakeRecyclerView(RuntimeEnvironment.application);
+  }
+
+  @Test
+  public void initialStateIsComputedOnce() {
+    ScrollBoundaryChecker checker = ScrollBoundaryCheckers.create(recyclerView);
+    assertTrue(checker.isScrollToTop());
+    assertEquals(1, recyclerView.canScrollUpCalls);
+    recyclerView.canScrollUp = true;
+    //没有滑动事件时保持缓存的结果
+    assertTrue(checker.isScrollToTop());
+    assertEquals(1, recyclerView.canScrollUpCalls);
+  }
+
+  @Test
+  public void scrolledWithoutOffsetRecomputes() {
+    ScrollBoundaryChecker checker = ScrollBoundaryCheckers.create(recyclerView);
+    //布局变化时RecyclerView会回调onScrolled(0, 0)
+    recyclerView.canScrollUp = true;
+    recyclerView.scrollListener.onScrolled(recyclerView, 0, 0);
+    assertFalse(checker.isScrollToTop());
+    recyclerView.canScrollUp = false;
+    recyclerView.scrollListener.onScrolled(recyclerView, 0, 0);
+    assertTrue(checker.isScrollToTop());
+  }
+
+  @Test
+  public void scrolledDownIsNeverAtTop() {
+    ScrollBoundaryChecker checker = ScrollBoundaryCheckers.create(recyclerView);
+    recyclerView.canScrollUp = false;
+    int calls = recyclerView.canScrollUpCalls;
+    recyclerView.scrollListener.onScrolled(recyclerView, 0, 10);
+    assertFalse(checker.isScrollToTop());
+    //向下滑动时不需要询问RecyclerView
+    assertEquals(calls, recyclerView.canScrollUpCalls);
+  }
+
+  @Test
+  public void scrolledUpToTopIsAtTop() {
+    recyclerView.canScrollUp = true;
+    ScrollBoundaryChecker checker = ScrollBoundaryCheckers.create(recyclerView);
+    assertFalse(checker.isScrollToTop());
+    recyclerView.scrollListener.onScrolled(recyclerView, 0, -10);
+    assertFalse(checker.isScrollToTop());
+    recyclerView.canScrollUp = false;
+    recyclerView.scrollListener.onScrolled(recyclerView, 0, -10);
+    assertTrue(checker.isScrollToTop());
+  }
+
+  @Test
+  public void releaseRemovesScrollListener() {
+    ScrollBoundaryChecker checker = ScrollBoundaryCheckers.create(recyclerView);
+    ScrollBoundaryCheckers.release(checker);
+    assertNull(recyclerView.scrollListener);
+  }
+
+  /**
+   * 可以控制是否能向上滑动，并记录注册的滑动监听
+   */
+  private static final class FakeRecyclerView extends RecyclerView {
+
+    boolean canScrollUp = false;
+    int canScrollUpCalls = 0;
+    OnScrollListener scrollListener;
+
+    FakeRecyclerView(Context context) {
+      super(context);
+    }
+
+    @Override
+    public boolean canScrollVertically(int direction) {
+      if (direction < 0) {
+        canScrollUpCalls++;
+        return canScrollUp;
+      }
+      return false;
+    }
+
+    @Override
+    public void addOnScrollListener(OnScrollListener listener) {
+      scrollListener = listener;
+    }
+
+    @Override
+    public void removeOnScrollListener(OnScrollListener listener) {
+      if (scrollListener == listener) {
+        scrollListener = null;
+      }
+    }
+  }
+}
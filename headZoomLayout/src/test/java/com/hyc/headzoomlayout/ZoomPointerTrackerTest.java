@@ -0,0 +1,152 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.MotionEvent.PointerCoords;
+import android.view.MotionEvent.PointerProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * 手指按下和抬起时下标的重新映射以及活跃手指的切换
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class ZoomPointerTrackerTest {
+
+  private ZoomPointerTracker tracker;
+  private long downTime;
+
+  @Before
+  public void setUp() {
+    tracker = new ZoomPointerTracker();
+    downTime = SystemClock.uptimeMillis();
+  }
+
+  @After
+  public void tearDown() {
+    tracker.clear();
+  }
+
+  @Test
+  public void downTracksFirstPointer() {
+    assertTrue(track(MotionEvent.ACTION_DOWN, 0, 0));
+    assertEquals(0, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(0));
+  }
+
+  @Test
+  public void pointerDownBecomesActive() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    assertTrue(track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 1));
+    assertEquals(1, tracker.getActivePointerId());
+    assertEquals(1, findActivePointerIndex(0, 1));
+  }
+
+  @Test
+  public void pointerDownWithSmallerIdIsInsertedBefore() {
+    track(MotionEvent.ACTION_DOWN, 0, 3);
+    //id较小的手指排在前面，新按下的手指下标为0
+    assertTrue(track(MotionEvent.ACTION_POINTER_DOWN, 0, 1, 3));
+    assertEquals(1, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(1, 3));
+    //新手指抬起后切换回原来的手指，下标从1变回0
+    assertTrue(track(MotionEvent.ACTION_POINTER_UP, 0, 1, 3));
+    assertEquals(3, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(3));
+  }
+
+  @Test
+  public void inactivePointerUpKeepsActiveAndRemapsIndex() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 1);
+    assertFalse(track(MotionEvent.ACTION_POINTER_UP, 0, 0, 1));
+    assertEquals(1, tracker.getActivePointerId());
+    //剩余的手指下标从1变为0
+    assertEquals(0, findActivePointerIndex(1));
+  }
+
+  @Test
+  public void activePointerUpSwitchesToFirstRemaining() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 1);
+    assertTrue(track(MotionEvent.ACTION_POINTER_UP, 1, 0, 1));
+    assertEquals(0, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(0));
+  }
+
+  @Test
+  public void activePointerUpAtFirstIndexSwitchesToSecond() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 2);
+    track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 1, 2);
+    assertEquals(1, tracker.getActivePointerId());
+    //活跃手指抬起，切换到第一个手指
+    assertTrue(track(MotionEvent.ACTION_POINTER_UP, 1, 0, 1, 2));
+    assertEquals(0, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(0, 2));
+    //第一个手指抬起，切换到剩余的手指，下标从1变为0
+    assertTrue(track(MotionEvent.ACTION_POINTER_UP, 0, 0, 2));
+    assertEquals(2, tracker.getActivePointerId());
+    assertEquals(0, findActivePointerIndex(2));
+  }
+
+  @Test
+  public void untrackedEventFallsBackToSearch() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    track(MotionEvent.ACTION_POINTER_DOWN, 1, 0, 1);
+    //没有收到第一个手指的ACTION_POINTER_UP，缓存的下标已失效
+    assertEquals(0, findActivePointerIndex(1));
+    assertEquals(-1, findActivePointerIndex(0));
+  }
+
+  @Test
+  public void clearRemovesActivePointer() {
+    track(MotionEvent.ACTION_DOWN, 0, 0);
+    tracker.clear();
+    assertEquals(HeadZoomLayout.INVALID_POINTER, tracker.getActivePointerId());
+    assertEquals(-1, findActivePointerIndex(0));
+  }
+
+  /**
+   * @param actionIndex ACTION_POINTER_DOWN和ACTION_POINTER_UP的手指下标
+   * @param pointerIds 事件中按下标排列的手指id
+   */
+  private boolean track(int action, int actionIndex, int... pointerIds) {
+    MotionEvent event = obtainEvent(
+        action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT), pointerIds);
+    boolean changed = tracker.onTouchEvent(event);
+    event.recycle();
+    return changed;
+  }
+
+  private int findActivePointerIndex(int... pointerIds) {
+    MotionEvent event = obtainEvent(MotionEvent.ACTION_MOVE, pointerIds);
+    int index = tracker.findActivePointerIndex(event);
+    event.recycle();
+    return index;
+  }
+
+  private MotionEvent obtainEvent(int action, int... pointerIds) {
+    PointerProperties[] properties = new PointerProperties[pointerIds.length];
+    PointerCoords[] coords = new PointerCoords[pointerIds.length];
+    for (int i = 0; i < pointerIds.length; i++) {
+      properties[i] = new PointerProperties();
+      properties[i].id = pointerIds[i];
+      properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+      coords[i] = new PointerCoords();
+      coords[i].x = 100;
+      coords[i].y = 100 + i * 50;
+    }
+    return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, pointerIds.length,
+        properties, coords, 0, 0, 1f, 1f, 0, 0, 0, 0);
+  }
+}
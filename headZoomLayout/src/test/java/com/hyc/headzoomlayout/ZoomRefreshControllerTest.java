@@ -0,0 +1,164 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 下拉刷新的状态变化：预加载、取消、确认刷新、保持和结束
+ */
+public class ZoomRefreshControllerTest {
+
+  private static final float ARM_FRACTION = 0.3f;
+  private static final float TRIGGER_FRACTION = 0.6f;
+
+  private ZoomRefreshController controller;
+  private RecordingListener listener;
+
+  @Before
+  public void setUp() {
+    controller = new ZoomRefreshController();
+    controller.setThresholds(ARM_FRACTION, TRIGGER_FRACTION);
+    listener = new RecordingListener();
+    controller.setOnRefreshListener(listener, null);
+  }
+
+  @Test
+  public void armThenBackOffCancelsPrefetch() {
+    controller.onPull(0.2f);
+    assertEquals(0, listener.prefetched.size());
+    controller.onPull(0.35f);
+    controller.onPull(0.5f);
+    //越过预备阈值只回调一次
+    assertEquals(1, listener.prefetched.size());
+    RefreshPrefetch prefetch = listener.prefetched.get(0);
+    assertFalse(prefetch.isCancelled());
+    controller.onPull(0.1f);
+    assertTrue(prefetch.isCancelled());
+    assertEquals(1, listener.cancelled.size());
+    assertSame(prefetch, listener.cancelled.get(0));
+    //再次越过预备阈值时重新开始一次预加载
+    controller.onPull(0.4f);
+    assertEquals(2, listener.prefetched.size());
+    assertNotSame(prefetch, listener.prefetched.get(1));
+  }
+
+  @Test
+  public void releaseBelowTriggerCancelsPrefetch() {
+    controller.onPull(0.5f);
+    controller.onRelease(0.5f);
+    RefreshPrefetch prefetch = listener.prefetched.get(0);
+    assertTrue(prefetch.isCancelled());
+    assertFalse(prefetch.isCommitted());
+    assertFalse(controller.isRefreshing());
+    assertEquals(0, listener.refreshed.size());
+  }
+
+  @Test
+  public void releaseWithoutPullNeverCommits() {
+    //子View的fling被转换为放大时没有下拉，松手前不会预加载
+    controller.onRelease(1f);
+    assertFalse(controller.isRefreshing());
+    assertEquals(0, listener.prefetched.size());
+    assertEquals(0, listener.refreshed.size());
+  }
+
+  @Test
+  public void commitHoldsUntilFinish() {
+    controller.onPull(0.7f);
+    controller.onRelease(0.7f);
+    RefreshPrefetch prefetch = listener.prefetched.get(0);
+    assertTrue(controller.isRefreshing());
+    assertTrue(prefetch.isCommitted());
+    assertFalse(prefetch.isCancelled());
+    assertEquals(1, listener.refreshed.size());
+    assertSame(prefetch, listener.refreshed.get(0));
+    //刷新期间的下拉、回退和松手都不影响当前刷新
+    controller.onPull(0.1f);
+    controller.onPull(0.9f);
+    controller.onRelease(0.1f);
+    controller.cancelPrefetch();
+    assertTrue(controller.isRefreshing());
+    assertFalse(prefetch.isCancelled());
+    assertEquals(1, listener.prefetched.size());
+    assertEquals(1, listener.refreshed.size());
+    controller.finish();
+    assertFalse(controller.isRefreshing());
+    //结束后可以开始下一次刷新
+    controller.onPull(0.4f);
+    assertEquals(2, listener.prefetched.size());
+  }
+
+  @Test
+  public void resetWhileRefreshingEndsRefresh() {
+    controller.onPull(0.7f);
+    controller.onRelease(0.7f);
+    assertTrue(controller.isRefreshing());
+    controller.reset();
+    assertFalse(controller.isRefreshing());
+    RefreshPrefetch prefetch = listener.prefetched.get(0);
+    //已确认的刷新不是未完成的预加载，布局复用时不回调取消
+    assertTrue(prefetch.isCommitted());
+    assertFalse(prefetch.isCancelled());
+    assertEquals(0, listener.cancelled.size());
+    controller.onPull(0.4f);
+    assertEquals(2, listener.prefetched.size());
+  }
+
+  @Test
+  public void resetCancelsArmedPrefetch() {
+    controller.onPull(0.4f);
+    controller.reset();
+    assertTrue(listener.prefetched.get(0).isCancelled());
+    assertEquals(1, listener.cancelled.size());
+  }
+
+  @Test
+  public void callbacksRunOnExecutor() {
+    final List<Runnable> tasks = new ArrayList<>();
+    controller.setOnRefreshListener(listener, new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        tasks.add(command);
+      }
+    });
+    controller.onPull(0.4f);
+    controller.onPull(0.1f);
+    assertEquals(0, listener.prefetched.size());
+    assertEquals(2, tasks.size());
+    tasks.get(0).run();
+    tasks.get(1).run();
+    assertEquals(1, listener.prefetched.size());
+    assertEquals(1, listener.cancelled.size());
+  }
+
+  private static final class RecordingListener implements HeadZoomLayout.OnRefreshListener {
+
+    final List<RefreshPrefetch> prefetched = new ArrayList<>();
+    final List<RefreshPrefetch> cancelled = new ArrayList<>();
+    final List<RefreshPrefetch> refreshed = new ArrayList<>();
+
+    @Override
+    public void onPrefetch(RefreshPrefetch prefetch) {
+      prefetched.add(prefetch);
+    }
+
+    @Override
+    public void onPrefetchCancelled(RefreshPrefetch prefetch) {
+      cancelled.add(prefetch);
+    }
+
+    @Override
+    public void onRefresh(RefreshPrefetch prefetch) {
+      refreshed.add(prefetch);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.hyc.headzoomlayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.view.View;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * RenderEffect的取整和组合顺序，通过记录调用的EffectFactory校验，不依赖API 31的RenderEffect
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 22)
+public class ZoomRenderEffectsTest {
+
+  private RecordingFactory factory;
+  private ZoomRenderEffects renderEffects;
+  private View target;
+
+  @Before
+  public void setUp() {
+    factory = new RecordingFactory();
+    renderEffects = new ZoomRenderEffects(factory);
+    renderEffects.setMaxBlurRadius(20);
+    renderEffects.setMaxDimAmount(0.5f);
+    target = new View(RuntimeEnvironment.application);
+    renderEffects.setTarget(target);
+  }
+
+  @Test
+  public void quantizeRoundsToStep() {
+    assertEquals(2.5f, ZoomRenderEffects.quantize(2.6f, ZoomRenderEffects.RADIUS_STEP), 0f);
+    assertEquals(3.0f, ZoomRenderEffects.quantize(2.8f, ZoomRenderEffects.RADIUS_STEP), 0f);
+    assertEquals(0f, ZoomRenderEffects.quantize(0.2f, ZoomRenderEffects.RADIUS_STEP), 0f);
+    assertEquals(16 / 64f, ZoomRenderEffects.quantize(0.252f, ZoomRenderEffects.DIM_STEP), 0f);
+  }
+
+  @Test
+  public void smallChangesDoNotCreateNewEffects() {
+    renderEffects.apply(0.5f);
+    assertEquals(1, factory.appliedEffects.size());
+    //半径10.02和压暗0.2505取整后不变
+    renderEffects.apply(0.501f);
+    assertEquals(1, factory.appliedEffects.size());
+    renderEffects.apply(0.55f);
+    assertEquals(2, factory.appliedEffects.size());
+  }
+
+  @Test
+  public void blurIsAppliedBeforeDim() {
+    renderEffects.apply(0.5f);
+    assertSame(target, factory.lastTarget);
+    assertEquals("chain(dim(0.25), blur(10.0))", factory.appliedEffects.get(0));
+  }
+
+  @Test
+  public void singleEffectIsNotChained() {
+    renderEffects.setMaxDimAmount(0);
+    renderEffects.apply(0.5f);
+    assertEquals("blur(10.0)", factory.appliedEffects.get(0));
+    renderEffects.setMaxBlurRadius(0);
+    renderEffects.setMaxDimAmount(0.5f);
+    renderEffects.apply(0.5f);
+    assertEquals("dim(0.25)", factory.appliedEffects.get(1));
+  }
+
+  @Test
+  public void zeroFractionRemovesEffect() {
+    renderEffects.apply(0.5f);
+    renderEffects.apply(0);
+    assertEquals(2, factory.appliedEffects.size());
+    assertNull(factory.appliedEffects.get(1));
+  }
+
+  @Test
+  public void clearOnlyRemovesAppliedEffect() {
+    renderEffects.clear();
+    assertEquals(0, factory.appliedEffects.size());
+    renderEffects.setTarget(target);
+    renderEffects.apply(0.5f);
+    renderEffects.setTarget(new View(RuntimeEnvironment.application));
+    assertEquals(2, factory.appliedEffects.size());
+    assertSame(target, factory.lastTarget);
+    assertNull(factory.appliedEffects.get(1));
+  }
+
+  /**
+   * 以字符串表示创建的效果，记录设置到View上的效果
+   */
+  private static final class RecordingFactory implements ZoomRenderEffects.EffectFactory {
+
+    final List<Object> appliedEffects = new ArrayList<>();
+    View lastTarget;
+
+    @Override
+    public Object createBlurEffect(float radius) {
+      return "blur(" + radius + ")";
+    }
+
+    @Override
+    public Object createDimEffect(float dim) {
+      return "dim(" + dim + ")";
+    }
+
+    @Override
+    public Object createChainEffect(Object outer, Object inner) {
+      return "chain(" + outer + ", " + inner + ")";
+    }
+
+    @Override
+    public void setRenderEffect(View target, Object effect) {
+      lastTarget = target;
+      appliedEffects.add(effect);
+    }
+  }
+}